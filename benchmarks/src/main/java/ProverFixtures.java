@@ -0,0 +1,232 @@
+import benchmarks.ProverFixture;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+/********************************************************************************
+ * The ProverFixtures class runs the operations measured by the benchmarks (see
+ * ProverFixture) on the prover's classes, which it can reach from the unnamed
+ * package. The hot paths cycle through the clauses and literal pairs of a small
+ * rule-heavy KB; prove() answers the query of one of the problems below with a
+ * new prover each time (so no cache or lemma is involved); parse() parses a
+ * synthetic KB file with KBParser
+ ********************************************************************************/
+public class ProverFixtures implements ProverFixture{
+
+    private static final String[] SENTENCES = {
+        "~Parent(x,y) | ~Parent(y,z) | Grandparent(x,z)",
+        "~Parent(x,y) | Ancestor(x,y)",
+        "~Ancestor(x,y) | ~Ancestor(y,z) | Ancestor(x,z)",
+        "Parent(Alice,Bob)",
+        "Parent(Bob,Carol)",
+        "Parent(x,Dave) | ~Adopts(x,Dave)",
+        "~Grandparent(Alice,w) | Happy(w)",
+        "~Happy(v) | ~Ancestor(Alice,v) | Rich(v)",
+        "~Rich(Carol)",
+        "Ancestor(Eve,u) | ~Knows(u,Eve)"
+    };
+    private static final String[] PREDICATES = {"Parent", "Ancestor", "Knows", "Likes", "Sibling", "Friend", "Teaches", "Owns"};
+    private static final String[] VARIABLES = {"x", "y", "z", "w"};
+    //Number of links of the chain problems
+    private static final int CHAIN_LENGTH = 8;
+    //Resolution does not saturate recursive rules, so an unprovable query is searched until this many resolvents
+    private static final long UNPROVABLE_GENERATED_LIMIT = 20000;
+
+    private SymbolTable symbols = new SymbolTable();
+    private ResolutionWorkspace workspace = new ResolutionWorkspace();
+    private SubstitutionMap bindings = new SubstitutionMap();
+    private ArrayList<Clause> clauses = new ArrayList<>();
+    private ArrayList<Clause> variants = new ArrayList<>();
+    private ArrayList<ArrayList<Literal>> clauseLiterals = new ArrayList<>();
+    private HashSet<Clause> clauseSet = new HashSet<>();
+    //Complementary literal pairs, as (outer clause, outer literal, inner clause, inner literal)
+    private ArrayList<Object[]> literalPairs = new ArrayList<>();
+    private int clauseIndex;
+    private int pairIndex;
+    private KnowledgeBase knowledgeBase;
+    private Clause negatedQuery;
+    private QueryBudget budget;
+    //The synthetic KB of parse(), read (or memory-mapped) as the prover reads its input
+    private ByteBuffer sentenceBuffer;
+
+    /**
+     * ProverFixtures constructor: parses the hot path clauses and collects their complementary literal pairs
+     */
+    public ProverFixtures(){
+        for (String sentence : SENTENCES) {
+            Clause clause = homework.parseSentence(sentence, symbols);
+            clauses.add(clause);
+            clauseLiterals.add(new ArrayList<>(clause.getLiterals()));
+            clauseSet.add(clause);
+            //Parsed again, the clause is an equal but distinct instance
+            variants.add(homework.parseSentence(sentence, symbols));
+        }
+        for (int i = 0; i < clauses.size(); i++) {
+            for (int j = i + 1; j < clauses.size(); j++) {
+                for (Literal outerLiteral : clauses.get(i).getLiterals()) {
+                    for (Literal innerLiteral : clauses.get(j).getLiterals()) {
+                        if(outerLiteral.getSign() != innerLiteral.getSign()
+                                && outerLiteral.getLiteral().getSymbolId() == innerLiteral.getLiteral().getSymbolId()){
+                            literalPairs.add(new Object[]{clauses.get(i), outerLiteral, clauses.get(j), innerLiteral});
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to load a problem: "family" (a short ancestry proof), "chain" (a proof along a
+     * chain of links) or "chainUnprovable" (a query the chain does not entail, searched until
+     * UNPROVABLE_GENERATED_LIMIT resolvents are generated)
+     * @param problem the name of the problem
+     */
+    @Override
+    public void load(String problem){
+        knowledgeBase = new KnowledgeBase();
+        List<String> sentences = new ArrayList<>();
+        String query;
+        budget = new QueryBudget(homework.TOTAL_RES_TIME);
+        switch(problem){
+            case "family":
+                sentences.add("Parent(Alice,Bob)");
+                sentences.add("Parent(Bob,Carol)");
+                sentences.add("Parent(Carol,Dave)");
+                sentences.add("Parent(Dave,Eve)");
+                sentences.add("~Parent(x,y) | Ancestor(x,y)");
+                sentences.add("~Parent(x,y) | ~Ancestor(y,z) | Ancestor(x,z)");
+                sentences.add("~Ancestor(x,y) | ~Rich(y) | Heir(y,x)");
+                sentences.add("Rich(Eve)");
+                query = "Heir(Eve,Alice)";
+                break;
+            case "chain":
+            case "chainUnprovable":
+                for (int i = 0; i < CHAIN_LENGTH; i++) {
+                    sentences.add("Edge(" + node(i) + "," + node(i + 1) + ")");
+                }
+                sentences.add("~Edge(x,y) | Path(x,y)");
+                sentences.add("~Edge(x,y) | ~Path(y,z) | Path(x,z)");
+                if(problem.equals("chain")){
+                    query = "Path(" + node(0) + "," + node(CHAIN_LENGTH) + ")";
+                }
+                else{
+                    query = "Path(" + node(CHAIN_LENGTH) + "," + node(0) + ")";
+                    budget = new QueryBudget(homework.TOTAL_RES_TIME, 0, UNPROVABLE_GENERATED_LIMIT, 0, 0);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown problem " + problem);
+        }
+        for (String sentence : sentences) {
+            knowledgeBase.tell(sentence);
+        }
+        negatedQuery = knowledgeBase.parseNegatedQuery(query);
+    }
+
+    @Override
+    public boolean unify(){
+        Object[] pair = nextPair();
+        Term outerAtom = ((Literal) pair[1]).getLiteral();
+        Term innerAtom = ((Literal) pair[3]).getLiteral();
+        int mark = bindings.mark();
+        boolean unified = outerAtom.unify(0, innerAtom, ((Clause) pair[0]).getNumVariables(), bindings) != null;
+        bindings.undoTo(mark);
+        return unified;
+    }
+
+    @Override
+    public Object resolve(){
+        Object[] pair = nextPair();
+        return homework.resolveLiterals(workspace, (Clause) pair[0], (Literal) pair[1], (Clause) pair[2], (Literal) pair[3]);
+    }
+
+    @Override
+    public Object buildClause(){
+        return new Clause(new LinkedHashSet<>(clauseLiterals.get(nextClause())));
+    }
+
+    @Override
+    public int hashClause(){
+        return clauses.get(nextClause()).hashCode();
+    }
+
+    @Override
+    public boolean containsVariant(){
+        return clauseSet.contains(variants.get(nextClause()));
+    }
+
+    @Override
+    public boolean prove(){
+        GivenClauseProver prover = new GivenClauseProver(budget, null, new CancellationToken());
+        return prover.prove(negatedQuery, knowledgeBase.getReducedClauseSet());
+    }
+
+    @Override
+    public void loadSentences(int sentences) throws IOException{
+        Path kbFile = Files.createTempFile("kb", ".txt");
+        kbFile.toFile().deleteOnExit();
+        Random random = new Random(42);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(kbFile, StandardCharsets.US_ASCII))) {
+            for (int i = 0; i < sentences; i++) {
+                StringBuilder sentence = new StringBuilder();
+                int numLiterals = 1 + random.nextInt(4);
+                for (int l = 0; l < numLiterals; l++) {
+                    sentence.append(l > 0 ? " | " : "").append(random.nextBoolean() ? "~" : "").append(PREDICATES[random.nextInt(PREDICATES.length)]).append('(');
+                    int arity = 1 + random.nextInt(3);
+                    for (int k = 0; k < arity; k++) {
+                        sentence.append(k > 0 ? "," : "");
+                        sentence.append(random.nextInt(3) == 0 ? "C" + random.nextInt(10000) : VARIABLES[random.nextInt(VARIABLES.length)]);
+                    }
+                    sentence.append(')');
+                }
+                writer.println(sentence);
+            }
+        }
+        sentenceBuffer = KBParser.readFile(kbFile);
+    }
+
+    @Override
+    public int parse(int parallelism){
+        //A fresh symbol table each time, so every name is interned again
+        return KBParser.parseSentences(new SymbolTable(), sentenceBuffer, 0, sentenceBuffer.limit(), parallelism).size();
+    }
+
+    /**
+     * Method to name a node of the chain problems (names are letters only)
+     * @param index the index of the node
+     * @return the name of the node
+     */
+    private static String node(int index){
+        return "Node" + (char) ('A' + index);
+    }
+
+    /**
+     * Method to cycle through the literal pairs
+     * @return the next literal pair
+     */
+    private Object[] nextPair(){
+        if(++pairIndex == literalPairs.size()){
+            pairIndex = 0;
+        }
+        return literalPairs.get(pairIndex);
+    }
+
+    /**
+     * Method to cycle through the clauses
+     * @return the index of the next clause
+     */
+    private int nextClause(){
+        if(++clauseIndex == clauses.size()){
+            clauseIndex = 0;
+        }
+        return clauseIndex;
+    }
+}
@@ -0,0 +1,295 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/********************************************************************************
+ * The ScalingHarness class runs the prover on generated problems of growing
+ * size (see WorkloadGenerator) and records, for each size, the time taken, the
+ * resolvents generated and the peak heap of its queries, checking every answer
+ * against the known one. Resolution does not saturate recursive rules, so each
+ * query is also bounded by a number of generated clauses: a deterministic limit,
+ * so that the resolvents generated by a size are the same from run to run.
+ * After a warm-up, each size is run at least MIN_RUNS times and for at least the
+ * minimum measured time, and its time is the median total time of all its
+ * queries (decided or not). The growth exponent (1 is linear) is fitted by least
+ * squares on log(measure) against log(size) over all the sizes, both for the
+ * resolvents generated and for the time. An exponent above the threshold is
+ * reported as a super-linear regression, with a non-zero exit status so that
+ * the harness can gate a build, but only if its fit is stable:
+ *   resolvents: no query of any size stopped on a clock, and R^2 >= MIN_R2
+ *   time:       the median absolute deviation of the runs of every size is
+ *               within MAX_SPREAD of their median, and R^2 >= MIN_R2
+ * A wrong answer always fails the run
+ * (run with: java -cp benchmarks.jar ScalingHarness [random|chain] [sizes]
+ * [width] [density] [arity] [queries] [time limit in ms] [max exponent]
+ * [max generated clauses per query] [min measured ms per size]
+ * e.g. ScalingHarness chain 10,20,40,80 3 0.5 2 10 10000 2.0 3000 1000)
+ ********************************************************************************/
+public class ScalingHarness{
+
+    //Minimum number of measured runs of each size
+    static final int MIN_RUNS = 3;
+    //Minimum time spent warming up on the smallest size, in milliseconds
+    static final long WARMUP_MILLIS = 2000;
+    //Minimum coefficient of determination of a fit to gate on it
+    static final double MIN_R2 = 0.9;
+    //Maximum spread (median absolute deviation / median) of the times of a size to gate on the time fit
+    static final double MAX_SPREAD = 0.1;
+    //Minimum number of sizes to fit an exponent on
+    static final int MIN_SIZES = 3;
+
+    /**
+     * The totals of the queries of one run of a size
+     */
+    static class Measurement{
+        private int size;
+        private long elapsedNanos;
+        private long generatedCount;
+        private long peakHeapBytes;
+        private int unknownCount;
+        private int clockStopCount;
+        private int wrongCount;
+    }
+
+    /**
+     * A least-squares fit of log(measure) = exponent * log(size) + constant
+     */
+    static class Fit{
+        private double exponent;
+        private double r2;
+    }
+
+    private String family;
+    private int width;
+    private double density;
+    private int arity;
+    private int numQueries;
+    private long timeLimit;
+    private long maxGenerated;
+
+    /**
+     * ScalingHarness constructor
+     * @param family the kind of problems (random or chain)
+     * @param width the number of literals of each rule (random problems)
+     * @param density the probability for each argument of a rule to be a variable (random problems)
+     * @param arity the arity of every predicate (random problems)
+     * @param numQueries the number of queries of each problem
+     * @param timeLimit the time limit of each query, in milliseconds
+     * @param maxGenerated the maximum number of clauses each query may generate
+     */
+    public ScalingHarness(String family, int width, double density, int arity, int numQueries, long timeLimit, long maxGenerated){
+        this.family = family;
+        this.width = width;
+        this.density = density;
+        this.arity = arity;
+        this.numQueries = numQueries;
+        this.timeLimit = timeLimit;
+        this.maxGenerated = maxGenerated;
+    }
+
+    /**
+     * Method to generate the problem of a size (always from the same seed) and answer its queries
+     * @param size the size of the problem (sentences of a random KB, links of a chain)
+     * @return the totals of the queries
+     */
+    public Measurement run(int size){
+        WorkloadGenerator generator = new WorkloadGenerator(size);
+        WorkloadGenerator.Problem problem = family.equals("chain") ? generator.chain(size, numQueries)
+                : generator.random(size, width, density, arity, numQueries);
+        KnowledgeBase knowledgeBase = new KnowledgeBase();
+        for (String sentence : problem.getSentences()) {
+            knowledgeBase.tell(sentence);
+        }
+        ReducedClauseSet reducedClauses = knowledgeBase.getReducedClauseSet();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() == MemoryType.HEAP){
+                heapPools.add(pool);
+            }
+        }
+        Measurement measurement = new Measurement();
+        measurement.size = size;
+        for (int i = 0; i < problem.getQueries().size(); i++) {
+            Clause negatedQuery = knowledgeBase.parseNegatedQuery(problem.getQueries().get(i));
+            System.gc();
+            for (MemoryPoolMXBean pool : heapPools) {
+                pool.resetPeakUsage();
+            }
+            //A new prover per query, so that no cache or lemma carries work over
+            GivenClauseProver prover = new GivenClauseProver(new QueryBudget(timeLimit, 0, maxGenerated, 0, 0), null,
+                    new CancellationToken());
+            long startTime = System.nanoTime();
+            boolean entailed = prover.prove(negatedQuery, reducedClauses);
+            measurement.elapsedNanos += System.nanoTime() - startTime;
+            measurement.generatedCount += prover.getStatistics().getGeneratedCount();
+            long peakHeapBytes = 0;
+            for (MemoryPoolMXBean pool : heapPools) {
+                peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+            measurement.peakHeapBytes = Math.max(measurement.peakHeapBytes, peakHeapBytes);
+            if(!entailed && prover.getStopReason() != null){
+                measurement.unknownCount++;
+                //The resolvents generated before a clock ran out vary from run to run
+                if(!prover.getStopReason().isDeterministic()){
+                    measurement.clockStopCount++;
+                }
+                continue;
+            }
+            //A search may give up on an entailed query, but must never prove one that is not entailed
+            if(entailed != problem.getAnswers().get(i)){
+                measurement.wrongCount++;
+            }
+        }
+        return measurement;
+    }
+
+    /**
+     * Method to compute the median of sorted values
+     * @param values the values, sorted
+     * @return the median
+     */
+    static double median(double[] values){
+        return values.length % 2 == 1 ? values[values.length / 2] : (values[values.length / 2 - 1] + values[values.length / 2]) / 2;
+    }
+
+    /**
+     * Method to fit log(measure) = exponent * log(size) + constant by least squares
+     * @param sizes the sizes
+     * @param measures the measure of each size (all positive)
+     * @return the fit
+     */
+    static Fit fit(double[] sizes, double[] measures){
+        int n = sizes.length;
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = 0; i < n; i++) {
+            meanX += Math.log(sizes[i]) / n;
+            meanY += Math.log(measures[i]) / n;
+        }
+        double sxx = 0;
+        double sxy = 0;
+        double syy = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = Math.log(sizes[i]) - meanX;
+            double dy = Math.log(measures[i]) - meanY;
+            sxx += dx * dx;
+            sxy += dx * dy;
+            syy += dy * dy;
+        }
+        Fit fit = new Fit();
+        fit.exponent = sxy / sxx;
+        //A flat measure is fitted exactly
+        fit.r2 = syy == 0 ? 1 : sxy * sxy / (sxx * syy);
+        return fit;
+    }
+
+    /**
+     * Method to report the fit of a measure over the sizes and decide whether it fails the run
+     * @param name the name of the measure
+     * @param sizes the sizes
+     * @param measures the measure of each size
+     * @param unstableReason why the measure cannot be gated on regardless of the fit (null if it can)
+     * @param maxExponent the largest exponent that does not fail the run
+     * @return true iff the fit is stable and its exponent exceeds maxExponent
+     */
+    static boolean reportFit(String name, double[] sizes, double[] measures, String unstableReason, double maxExponent){
+        for (double measure : measures) {
+            if(measure <= 0){
+                System.out.printf("%s: not fitted (a size measured 0)%n", name);
+                return false;
+            }
+        }
+        if(sizes.length < MIN_SIZES){
+            System.out.printf("%s: not fitted (fewer than %d sizes)%n", name, MIN_SIZES);
+            return false;
+        }
+        Fit fit = fit(sizes, measures);
+        if(unstableReason == null && fit.r2 < MIN_R2){
+            unstableReason = String.format("R^2 below %.2f", MIN_R2);
+        }
+        boolean superLinear = fit.exponent > maxExponent;
+        System.out.printf("%s: exponent=%.2f R^2=%.3f%s%s%n", name, fit.exponent, fit.r2, superLinear ? " SUPER-LINEAR" : "",
+                unstableReason != null ? " (unstable, not gated: " + unstableReason + ")" : "");
+        return superLinear && unstableReason == null;
+    }
+
+    public static void main(String[] args){
+        String family = args.length > 0 ? args[0] : "random";
+        String sizes = args.length > 1 ? args[1] : "50,100,200,400";
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        double density = args.length > 3 ? Double.parseDouble(args[3]) : 0.5;
+        int arity = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        int numQueries = args.length > 5 ? Integer.parseInt(args[5]) : 10;
+        long timeLimit = args.length > 6 ? Long.parseLong(args[6]) : 10000;
+        double maxExponent = args.length > 7 ? Double.parseDouble(args[7]) : 2.0;
+        long maxGenerated = args.length > 8 ? Long.parseLong(args[8]) : 3000;
+        long minMeasuredMillis = args.length > 9 ? Long.parseLong(args[9]) : 1000;
+        ScalingHarness harness = new ScalingHarness(family, width, density, arity, numQueries, timeLimit, maxGenerated);
+        ArrayList<Integer> sizeList = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            sizeList.add(Integer.parseInt(size.trim()));
+        }
+        //Warm up on the smallest size, so that the measurements are not mostly JIT compilation
+        long warmupStart = System.nanoTime();
+        do {
+            harness.run(sizeList.get(0));
+        } while(System.nanoTime() - warmupStart < WARMUP_MILLIS * 1000000L);
+        System.out.println("size,runs,medianMs,minMs,maxMs,generated,peakHeapMB,unknown,clockStops,wrong");
+        boolean failed = false;
+        double[] fitSizes = new double[sizeList.size()];
+        double[] medianMillis = new double[sizeList.size()];
+        double[] generatedCounts = new double[sizeList.size()];
+        String generatedUnstable = null;
+        String timeUnstable = null;
+        for (int s = 0; s < sizeList.size(); s++) {
+            int size = sizeList.get(s);
+            ArrayList<Measurement> runs = new ArrayList<>();
+            long measuredNanos = 0;
+            while(runs.size() < MIN_RUNS || measuredNanos < minMeasuredMillis * 1000000L){
+                Measurement measurement = harness.run(size);
+                runs.add(measurement);
+                measuredNanos += measurement.elapsedNanos;
+            }
+            double[] runMillis = new double[runs.size()];
+            long peakHeapBytes = 0;
+            int clockStopCount = 0;
+            int wrongCount = 0;
+            for (int r = 0; r < runs.size(); r++) {
+                Measurement measurement = runs.get(r);
+                runMillis[r] = measurement.elapsedNanos / 1e6;
+                peakHeapBytes = Math.max(peakHeapBytes, measurement.peakHeapBytes);
+                clockStopCount += measurement.clockStopCount;
+                wrongCount += measurement.wrongCount;
+                if(measurement.generatedCount != runs.get(0).generatedCount && generatedUnstable == null){
+                    generatedUnstable = "resolvents vary between runs of size " + size;
+                }
+            }
+            Arrays.sort(runMillis);
+            double median = median(runMillis);
+            double[] deviations = new double[runMillis.length];
+            for (int r = 0; r < runMillis.length; r++) {
+                deviations[r] = Math.abs(runMillis[r] - median);
+            }
+            Arrays.sort(deviations);
+            if(clockStopCount > 0 && generatedUnstable == null){
+                generatedUnstable = "queries of size " + size + " ran out of time";
+            }
+            if(median > 0 && median(deviations) / median > MAX_SPREAD && timeUnstable == null){
+                timeUnstable = String.format("runs of size %d deviate by more than %.0f%% from their median", size, MAX_SPREAD * 100);
+            }
+            fitSizes[s] = size;
+            medianMillis[s] = median;
+            generatedCounts[s] = runs.get(0).generatedCount;
+            failed |= wrongCount > 0;
+            System.out.printf("%d,%d,%.1f,%.1f,%.1f,%d,%.1f,%d,%d,%d%n", size, runs.size(), median, runMillis[0],
+                    runMillis[runMillis.length - 1], runs.get(0).generatedCount, peakHeapBytes / (1024.0 * 1024.0),
+                    runs.get(0).unknownCount, clockStopCount, wrongCount);
+        }
+        failed |= reportFit("resolvents", fitSizes, generatedCounts, generatedUnstable, maxExponent);
+        failed |= reportFit("time", fitSizes, medianMillis, timeUnstable, maxExponent);
+        System.exit(failed ? 1 : 0);
+    }
+}
@@ -0,0 +1,374 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/********************************************************************************
+ * The WorkloadGenerator class generates FOL problems in the input.txt format
+ * along with their known answers. The KBs are function-free Horn clauses (ground
+ * facts, and rules with one positive head literal whose variables all occur in
+ * the body), so a query atom is entailed iff it is in the least model of the KB,
+ * which the generator computes by forward chaining, independently of the prover
+ *   random: random facts and rules, parameterized by KB size, clause width,
+ *           variable density and predicate arity
+ *   chain:  the links of a chain and the rules of reachability along it (the
+ *           forward queries are entailed, the backward ones are not)
+ * (run with: java -cp benchmarks.jar WorkloadGenerator random|chain <size> <dir>
+ * [width] [density] [arity] [queries] [seed], which writes dir/input.txt and
+ * dir/expected.txt, the expected output.txt)
+ ********************************************************************************/
+public class WorkloadGenerator{
+
+    /**
+     * An atom: a predicate applied to arguments (constants, or variables in rules), by name
+     */
+    static class Atom{
+        private String predicate;
+        private String[] arguments;
+
+        Atom(String predicate, String[] arguments){
+            this.predicate = predicate;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public boolean equals(Object obj){
+            return obj instanceof Atom && toString().equals(obj.toString());
+        }
+
+        @Override
+        public int hashCode(){
+            return toString().hashCode();
+        }
+
+        @Override
+        public String toString(){
+            return predicate + "(" + String.join(",", arguments) + ")";
+        }
+    }
+
+    /**
+     * A Horn rule: the conjunction of the body atoms implies the head atom
+     */
+    static class Rule{
+        private Atom[] body;
+        private Atom head;
+
+        Rule(Atom[] body, Atom head){
+            this.body = body;
+            this.head = head;
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder sentence = new StringBuilder();
+            for (Atom atom : body) {
+                sentence.append('~').append(atom).append(" | ");
+            }
+            return sentence.append(head).toString();
+        }
+    }
+
+    /**
+     * A generated problem: the queries, the sentences of the KB and the answer to each query
+     */
+    static class Problem{
+        private List<String> queries = new ArrayList<>();
+        private List<Boolean> answers = new ArrayList<>();
+        private List<String> sentences = new ArrayList<>();
+
+        List<String> getQueries(){
+            return queries;
+        }
+
+        List<Boolean> getAnswers(){
+            return answers;
+        }
+
+        List<String> getSentences(){
+            return sentences;
+        }
+
+        /**
+         * Method to write the problem in the input.txt format, and its answers in the output.txt format
+         * @param directory the directory to write input.txt and expected.txt to
+         * @throws FileNotFoundException if a file cannot be created
+         */
+        void write(File directory) throws FileNotFoundException{
+            directory.mkdirs();
+            try (PrintWriter input = new PrintWriter(new File(directory, "input.txt"))) {
+                input.println(queries.size());
+                for (String query : queries) {
+                    input.println(query);
+                }
+                input.println(sentences.size());
+                for (String sentence : sentences) {
+                    input.println(sentence);
+                }
+            }
+            try (PrintWriter expected = new PrintWriter(new File(directory, "expected.txt"))) {
+                for (boolean answer : answers) {
+                    expected.println(answer ? "TRUE" : "FALSE");
+                }
+            }
+        }
+    }
+
+    private Random random;
+
+    /**
+     * WorkloadGenerator constructor
+     * @param seed the seed of the generator (the same seed generates the same problems)
+     */
+    public WorkloadGenerator(long seed){
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Method to generate a random problem
+     * @param size the number of sentences of the KB (a third of them rules)
+     * @param width the number of literals of each rule (at least 2)
+     * @param density the probability for each argument of a rule to be a variable
+     * @param arity the arity of every predicate
+     * @param numQueries the number of queries (half of them entailed, if the KB entails that many atoms)
+     * @return the problem
+     */
+    public Problem random(int size, int width, double density, int arity, int numQueries){
+        //Enough predicates and constants for the KB to be connected but not saturated
+        int numPredicates = Math.max(2, size / 10);
+        int numConstants = Math.max(2, (int) Math.sqrt(size));
+        int numRules = size / 3;
+        ArrayList<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < numRules; i++) {
+            Atom[] body = new Atom[Math.max(1, width - 1)];
+            ArrayList<String> bodyVariables = new ArrayList<>();
+            for (int j = 0; j < body.length; j++) {
+                String[] arguments = new String[arity];
+                for (int k = 0; k < arity; k++) {
+                    if(random.nextDouble() < density){
+                        //Reuse a variable of the rule half of the time, to join the body atoms
+                        if(!bodyVariables.isEmpty() && random.nextBoolean()){
+                            arguments[k] = bodyVariables.get(random.nextInt(bodyVariables.size()));
+                        }
+                        else{
+                            arguments[k] = name('x', bodyVariables.size());
+                            bodyVariables.add(arguments[k]);
+                        }
+                    }
+                    else{
+                        arguments[k] = name('C', random.nextInt(numConstants));
+                    }
+                }
+                body[j] = new Atom(name('P', random.nextInt(numPredicates)), arguments);
+            }
+            String[] headArguments = new String[arity];
+            for (int k = 0; k < arity; k++) {
+                //Head variables must occur in the body (range restriction)
+                headArguments[k] = !bodyVariables.isEmpty() && random.nextDouble() < density
+                        ? bodyVariables.get(random.nextInt(bodyVariables.size())) : name('C', random.nextInt(numConstants));
+            }
+            rules.add(new Rule(body, new Atom(name('P', random.nextInt(numPredicates)), headArguments)));
+        }
+        //Distinct facts, at most half of the ground atoms
+        int numFacts = (int) Math.min(size - numRules, numPredicates * Math.pow(numConstants, arity) / 2);
+        LinkedHashSet<Atom> facts = new LinkedHashSet<>();
+        while(facts.size() < numFacts){
+            facts.add(randomGroundAtom(numPredicates, numConstants, arity));
+        }
+        Problem problem = new Problem();
+        for (Atom fact : facts) {
+            problem.sentences.add(fact.toString());
+        }
+        for (Rule rule : rules) {
+            problem.sentences.add(rule.toString());
+        }
+        LinkedHashSet<Atom> model = leastModel(facts, rules);
+        //Entailed queries: derived atoms (not facts), so that each one takes a proof
+        ArrayList<Atom> derivedAtoms = new ArrayList<>();
+        for (Atom atom : model) {
+            if(!facts.contains(atom)){
+                derivedAtoms.add(atom);
+            }
+        }
+        for (int i = 0; i < numQueries; i++) {
+            if(i % 2 == 0 && !derivedAtoms.isEmpty()){
+                addQuery(problem, derivedAtoms.get(random.nextInt(derivedAtoms.size())), true);
+            }
+            else{
+                Atom atom = randomGroundAtom(numPredicates, numConstants, arity);
+                addQuery(problem, atom, model.contains(atom));
+            }
+        }
+        return problem;
+    }
+
+    /**
+     * Method to generate a chain problem: Edge facts along a chain, the rules of reachability,
+     * and queries from the start of the chain forwards (entailed) and backwards (not entailed)
+     * @param length the number of links of the chain
+     * @param numQueries the number of queries
+     * @return the problem
+     */
+    public Problem chain(int length, int numQueries){
+        LinkedHashSet<Atom> facts = new LinkedHashSet<>();
+        for (int i = 0; i < length; i++) {
+            facts.add(new Atom("Edge", new String[]{name('N', i), name('N', i + 1)}));
+        }
+        ArrayList<Rule> rules = new ArrayList<>();
+        rules.add(new Rule(new Atom[]{new Atom("Edge", new String[]{"x", "y"})}, new Atom("Path", new String[]{"x", "y"})));
+        rules.add(new Rule(new Atom[]{new Atom("Edge", new String[]{"x", "y"}), new Atom("Path", new String[]{"y", "z"})},
+                new Atom("Path", new String[]{"x", "z"})));
+        Problem problem = new Problem();
+        for (Atom fact : facts) {
+            problem.sentences.add(fact.toString());
+        }
+        for (Rule rule : rules) {
+            problem.sentences.add(rule.toString());
+        }
+        LinkedHashSet<Atom> model = leastModel(facts, rules);
+        for (int i = 0; i < numQueries; i++) {
+            int target = 1 + random.nextInt(length);
+            Atom atom = i % 2 == 0 ? new Atom("Path", new String[]{name('N', 0), name('N', target)})
+                    : new Atom("Path", new String[]{name('N', target), name('N', 0)});
+            addQuery(problem, atom, model.contains(atom));
+        }
+        return problem;
+    }
+
+    /**
+     * Method to add a query to a problem
+     * @param problem the problem
+     * @param atom the query atom
+     * @param entailed true iff the KB entails the atom
+     */
+    private static void addQuery(Problem problem, Atom atom, boolean entailed){
+        problem.queries.add(atom.toString());
+        problem.answers.add(entailed);
+    }
+
+    /**
+     * Method to generate a random ground atom
+     * @param numPredicates the number of predicates to choose from
+     * @param numConstants the number of constants to choose from
+     * @param arity the arity of the predicate
+     * @return the atom
+     */
+    private Atom randomGroundAtom(int numPredicates, int numConstants, int arity){
+        String[] arguments = new String[arity];
+        for (int k = 0; k < arity; k++) {
+            arguments[k] = name('C', random.nextInt(numConstants));
+        }
+        return new Atom(name('P', random.nextInt(numPredicates)), arguments);
+    }
+
+    /**
+     * Method to compute the least model of function-free Horn clauses by forward chaining: every rule
+     * is matched against the atoms derived so far until no new atom is derived
+     * @param facts the ground facts
+     * @param rules the (range-restricted) rules
+     * @return the atoms true in the least model
+     */
+    static LinkedHashSet<Atom> leastModel(LinkedHashSet<Atom> facts, List<Rule> rules){
+        LinkedHashSet<Atom> model = new LinkedHashSet<>(facts);
+        HashMap<String, ArrayList<Atom>> atomsByPredicate = new HashMap<>();
+        for (Atom fact : facts) {
+            atomsByPredicate.computeIfAbsent(fact.predicate, predicate -> new ArrayList<>()).add(fact);
+        }
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for (Rule rule : rules) {
+                ArrayList<Atom> derived = new ArrayList<>();
+                match(rule, 0, new HashMap<>(), atomsByPredicate, derived);
+                for (Atom atom : derived) {
+                    if(model.add(atom)){
+                        atomsByPredicate.computeIfAbsent(atom.predicate, predicate -> new ArrayList<>()).add(atom);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Method to match the body atoms of a rule (from a given one on) against the atoms derived so
+     * far, collecting the instantiated head of every complete match
+     * @param rule the rule
+     * @param index the body atom to match next
+     * @param bindings the bindings of the rule's variables so far
+     * @param atomsByPredicate the atoms derived so far, by predicate
+     * @param derived the list to add the instantiated heads to
+     */
+    private static void match(Rule rule, int index, Map<String, String> bindings, Map<String, ArrayList<Atom>> atomsByPredicate,
+            List<Atom> derived){
+        if(index == rule.body.length){
+            String[] arguments = new String[rule.head.arguments.length];
+            for (int k = 0; k < arguments.length; k++) {
+                arguments[k] = bindings.getOrDefault(rule.head.arguments[k], rule.head.arguments[k]);
+            }
+            derived.add(new Atom(rule.head.predicate, arguments));
+            return;
+        }
+        Atom pattern = rule.body[index];
+        ArrayList<Atom> candidates = atomsByPredicate.get(pattern.predicate);
+        if(candidates == null){
+            return;
+        }
+        for (Atom candidate : candidates) {
+            HashMap<String, String> extended = new HashMap<>(bindings);
+            boolean matches = true;
+            for (int k = 0; k < pattern.arguments.length && matches; k++) {
+                String argument = pattern.arguments[k];
+                if(Character.isLowerCase(argument.charAt(0))){
+                    String bound = extended.putIfAbsent(argument, candidate.arguments[k]);
+                    matches = bound == null || bound.equals(candidate.arguments[k]);
+                }
+                else{
+                    matches = argument.equals(candidate.arguments[k]);
+                }
+            }
+            if(matches){
+                match(rule, index + 1, extended, atomsByPredicate, derived);
+            }
+        }
+    }
+
+    /**
+     * Method to name the i-th symbol of a kind with letters only (a choice of the generator: the input
+     * format also allows digits and underscores after the first letter, e.g. C1 or Bob_2)
+     * @param prefix the first letter (upper case for predicates and constants, lower case for variables)
+     * @param index the index of the symbol
+     * @return the name (e.g. Pa, Pb, ..., Pz, Pba, ...)
+     */
+    static String name(char prefix, int index){
+        StringBuilder suffix = new StringBuilder();
+        do {
+            suffix.append((char) ('a' + index % 26));
+            index /= 26;
+        } while(index > 0);
+        return prefix + suffix.reverse().toString();
+    }
+
+    public static void main(String[] args) throws FileNotFoundException{
+        if(args.length < 3){
+            System.err.println("usage: WorkloadGenerator random|chain <size> <dir> [width] [density] [arity] [queries] [seed]");
+            System.exit(2);
+        }
+        int size = Integer.parseInt(args[1]);
+        int width = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        double density = args.length > 4 ? Double.parseDouble(args[4]) : 0.5;
+        int arity = args.length > 5 ? Integer.parseInt(args[5]) : 2;
+        int numQueries = args.length > 6 ? Integer.parseInt(args[6]) : 10;
+        long seed = args.length > 7 ? Long.parseLong(args[7]) : 1;
+        WorkloadGenerator generator = new WorkloadGenerator(seed);
+        Problem problem = args[0].equals("chain") ? generator.chain(size, numQueries)
+                : generator.random(size, width, density, arity, numQueries);
+        problem.write(new File(args[2]));
+    }
+}
@@ -0,0 +1,25 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/********************************************************************************
+ * The BenchmarkMain class runs the JMH benchmarks (java -jar benchmarks.jar
+ * [JMH options]) with the GC profiler on by default, so that every run reports
+ * the allocation rate (gc.alloc.rate.norm, bytes per operation) along with the
+ * throughput; any -prof option given replaces it
+ ********************************************************************************/
+public final class BenchmarkMain{
+
+    private BenchmarkMain(){}
+
+    public static void main(String[] args) throws Exception{
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if(!options.contains("-prof") && !options.contains("-h") && !options.contains("-l")){
+            options.add("-prof");
+            options.add("gc");
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
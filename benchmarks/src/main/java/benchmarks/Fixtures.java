@@ -0,0 +1,22 @@
+package benchmarks;
+
+/********************************************************************************
+ * The Fixtures class creates the ProverFixture implemented in the unnamed
+ * package, which can only be reached by name
+ ********************************************************************************/
+final class Fixtures{
+
+    private Fixtures(){}
+
+    /**
+     * Method to create a fixture
+     * @return a new ProverFixtures instance
+     */
+    static ProverFixture create(){
+        try {
+            return (ProverFixture) Class.forName("ProverFixtures").getConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("ProverFixtures is missing from the classpath", ex);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/********************************************************************************
+ * The HotPathBenchmark class measures the micro hot paths of the prover, one
+ * operation per invocation, cycling through the clauses (or complementary
+ * literal pairs) of a small rule-heavy KB:
+ *   unify          Term.unify() of two atoms standardized apart by offset
+ *   resolve        homework.resolveLiterals() (unify, instantiate, build the resolvent)
+ *   buildClause    new Clause(): standardizing the clause into its canonical encoding
+ *   hashClause     Clause.hashCode()
+ *   containsVariant   HashSet lookup of an equal clause instance (hashCode() and equals())
+ ********************************************************************************/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotPathBenchmark{
+
+    private ProverFixture fixture;
+
+    @Setup
+    public void setUp(){
+        fixture = Fixtures.create();
+    }
+
+    @Benchmark
+    public boolean unify(){
+        return fixture.unify();
+    }
+
+    @Benchmark
+    public Object resolve(){
+        return fixture.resolve();
+    }
+
+    @Benchmark
+    public Object buildClause(){
+        return fixture.buildClause();
+    }
+
+    @Benchmark
+    public int hashClause(){
+        return fixture.hashClause();
+    }
+
+    @Benchmark
+    public boolean containsVariant(){
+        return fixture.containsVariant();
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/********************************************************************************
+ * The ParseBenchmark class measures KBParser: each invocation parses a synthetic
+ * KB file (see ProverFixtures.loadSentences()) into a fresh symbol table, on one
+ * thread or split into chunks parsed in parallel. A sentence is about 30 bytes,
+ * so 100000 sentences are about 3 MB (memory-mapped, as KBParser.readFile()
+ * does for files over 1 MB)
+ ********************************************************************************/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark{
+
+    @Param({"100000"})
+    private int sentences;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private ProverFixture fixture;
+
+    @Setup
+    public void setUp() throws IOException{
+        fixture = Fixtures.create();
+        fixture.loadSentences(sentences);
+    }
+
+    @Benchmark
+    public int parse(){
+        return fixture.parse(parallelism);
+    }
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+/********************************************************************************
+ * The ProverFixture interface is the bridge between the benchmarks and the
+ * prover: the prover's classes are package-private classes of the unnamed
+ * package (see homework.java), which JMH benchmarks cannot live in, so each
+ * measured operation is run by the implementation in the unnamed package
+ * (ProverFixtures) and the benchmarks call it through this interface
+ ********************************************************************************/
+public interface ProverFixture{
+
+    /**
+     * Method to load a problem for prove() (see ProverFixtures for the problems)
+     * @param problem the name of the problem
+     */
+    void load(String problem);
+
+    /**
+     * Method to unify the next pair of complementary atoms (standardized apart by offset),
+     * then undo the bindings
+     * @return true iff the atoms unify
+     */
+    boolean unify();
+
+    /**
+     * Method to resolve the next pair of complementary literals
+     * @return the resolvent, or null if the literals do not unify
+     */
+    Object resolve();
+
+    /**
+     * Method to build the next clause from its literals (which computes its canonical,
+     * standardized encoding)
+     * @return the clause
+     */
+    Object buildClause();
+
+    /**
+     * Method to hash the next clause (the fingerprint of its canonical encoding)
+     * @return the hash code
+     */
+    int hashClause();
+
+    /**
+     * Method to look up a variant (another instance) of the next clause in a set of clauses
+     * @return true iff the set holds the clause
+     */
+    boolean containsVariant();
+
+    /**
+     * Method to write a synthetic KB file for parse() (1 to 4 literals per sentence, a third of the
+     * arguments constants, from a fixed seed)
+     * @param sentences the number of sentences
+     * @throws java.io.IOException if the file cannot be written or read back
+     */
+    void loadSentences(int sentences) throws java.io.IOException;
+
+    /**
+     * Method to parse the KB written by loadSentences() into a new symbol table
+     * @param parallelism the number of threads to parse with
+     * @return the number of clauses parsed
+     */
+    int parse(int parallelism);
+
+    /**
+     * Method to answer the query of the loaded problem with a new prover
+     * @return true iff the KB entails the query
+     */
+    boolean prove();
+}
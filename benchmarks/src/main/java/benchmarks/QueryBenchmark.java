@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/********************************************************************************
+ * The QueryBenchmark class measures whole searches: each invocation answers the
+ * query of a problem (see ProverFixtures.load()) with a new GivenClauseProver,
+ * over the reduced clauses of the problem's KB
+ ********************************************************************************/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark{
+
+    @Param({"family", "chain", "chainUnprovable"})
+    private String problem;
+
+    private ProverFixture fixture;
+
+    @Setup
+    public void setUp(){
+        fixture = Fixtures.create();
+        fixture.load(problem);
+    }
+
+    @Benchmark
+    public boolean prove(){
+        return fixture.prove();
+    }
+}
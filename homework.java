@@ -1,23 +1,66 @@
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Scanner;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
 
 /***********************************************************************************************
  * Name: Eric J. Hachuel
@@ -28,16 +71,19 @@ import java.util.regex.Pattern;
 /********************************************************************************
  * The interface Term class is used to implement the various components needed
  * for the homework such as Tuples, Constants/Predicates, and Variables
+ * Terms are shared between clauses: unification and substitution take the offset
+ * of the clause use each term belongs to (see the Variable class)
  ********************************************************************************/
 interface Term{
     String getTermValue();
+    int getSymbolId();
     boolean isTuple();
     boolean isConstant();
     boolean isVariable();
     List<Term> getParameters();
     Term copy();
-    SubstitutionMap unify(Term term, SubstitutionMap subsMap);
-    Term replaceVarBindings(SubstitutionMap subsMap);
+    SubstitutionMap unify(int offset, Term term, int termOffset, SubstitutionMap subsMap);
+    Term replaceVarBindings(int offset, SubstitutionMap subsMap);
 }
 
 /********************************************************************************
@@ -47,13 +93,16 @@ interface Term{
 class Constant implements Term{
     
     private String constantName;
+    private int symbolId;
  
     /**
-     * Constant constructor
+     * Constant constructor (Constants are interned, use SymbolTable.getConstant())
      * @param name the name of the constant
+     * @param id the symbol ID of the name in the SymbolTable
      */
-    public Constant(String name){
-        this.constantName = name.trim();
+    Constant(String name, int id){
+        this.constantName = name;
+        this.symbolId = id;
     }
     
     /**
@@ -76,13 +125,13 @@ class Constant implements Term{
             return false;
         }
         Constant other = (Constant) obj;
-        return this.getConstantName().equals(other.getConstantName());
+        return this.symbolId == other.symbolId;
     }
     
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 71 * hash + this.getConstantName().hashCode();
+        hash = 71 * hash + this.symbolId;
         return hash;
     }
     
@@ -93,14 +142,14 @@ class Constant implements Term{
     
     /***********************METHODS INHERITED FROM TERM***********************/
     @Override
-    public SubstitutionMap unify(Term term, SubstitutionMap subsMap){
+    public SubstitutionMap unify(int offset, Term term, int termOffset, SubstitutionMap subsMap){
         //Check if term is the same constant: return map
         if(this.equals(term)){ 
             return subsMap;
         }
         //Check if term is an instance of variable and unify
         else if(term.isVariable()){
-            return term.unify(this, subsMap);
+            return term.unify(termOffset, this, offset, subsMap);
         }
         else{
             //return null otherwise
@@ -114,7 +163,7 @@ class Constant implements Term{
     }
     
     @Override
-    public Term replaceVarBindings(SubstitutionMap subsMap){
+    public Term replaceVarBindings(int offset, SubstitutionMap subsMap){
         return this;
     }
     
@@ -123,6 +172,11 @@ class Constant implements Term{
         return getConstantName();
     }
     
+    @Override
+    public int getSymbolId(){
+        return symbolId;
+    }
+    
     @Override
     public boolean isTuple(){
         return false;
@@ -140,24 +194,57 @@ class Constant implements Term{
     
     @Override
     public Constant copy(){
-        return new Constant(constantName);
+        //Constants are interned and immutable, so they can be shared
+        return this;
     }
 }
 
 /********************************************************************************
  * The Variable class represents First Order Logic Variables and implements
- * the Term interface
+ * the Term interface. Variables are local to their clause and are identified by
+ * their index within it (0, 1, ... in order of appearance); when clauses are used
+ * together, each use is given an offset and variable i of a use stands for slot
+ * (i + offset) of the SubstitutionMap, which standardizes the clauses apart
+ * without renaming anything
  ********************************************************************************/
 class Variable implements Term{
     
-    private String variableName;
+    //Shared instances for the variable indices used by practically every clause
+    private static final Variable[] SHARED_VARIABLES = new Variable[256];
+    static{
+        for (int i = 0; i < SHARED_VARIABLES.length; i++) {
+            SHARED_VARIABLES[i] = new Variable(i);
+        }
+    }
+    
+    private int variableIndex;
+    
+    /**
+     * Variable constructor (use Variable.get())
+     * @param index the index of the Variable within its clause
+     */
+    private Variable(int index){
+        this.variableIndex = index;
+    }
+    
+    /**
+     * Method to retrieve the Variable with a given clause-local index
+     * @param index the index of the Variable within its clause
+     * @return the (shared, when possible) Variable
+     */
+    public static Variable get(int index){
+        if(index < SHARED_VARIABLES.length){
+            return SHARED_VARIABLES[index];
+        }
+        return new Variable(index);
+    }
     
     /**
-     * Variable constructor
-     * @param varName the name of the Variable
+     * Getter method to retrieve the index of the Variable within its clause
+     * @return the Variable's index
      */
-    public Variable(String varName){
-        this.variableName = varName.trim();
+    public int getIndex(){
+        return variableIndex;
     }
     
     /**
@@ -165,7 +252,7 @@ class Variable implements Term{
      * @return the Variable's name
      */
     public String getVariableName(){
-        return variableName;
+        return "x" + variableIndex;
     }
     
     @Override
@@ -180,13 +267,13 @@ class Variable implements Term{
             return false;
         }
         final Variable other = (Variable) obj;
-        return this.getVariableName().equals(other.getVariableName());
+        return this.variableIndex == other.variableIndex;
     }
 
     @Override
     public int hashCode() {
         int hash = 3;
-        hash = 89 * hash + this.getVariableName().hashCode();
+        hash = 89 * hash + this.variableIndex;
         return hash;
     }
   
@@ -197,39 +284,75 @@ class Variable implements Term{
     
     /***********************METHODS INHERITED FROM TERM***********************/
     @Override
-    public SubstitutionMap unify(Term term, SubstitutionMap subsMap){
-        //Check if the two are equal variables, return the substitution
-        if(this.equals(term)){
-            return subsMap;
-        }
+    public SubstitutionMap unify(int offset, Term term, int termOffset, SubstitutionMap subsMap){
+        int slot = variableIndex + offset;
         //Check if this variable is already binded to a term in the substitution
         //If it is, return the unification of its binding with the given Term
-        else if(subsMap.isBound(this)){
-            Term bindingTerm = subsMap.getBindingTerm(this);
-            return bindingTerm.unify(term, subsMap);
+        Term bindingTerm = subsMap.getBindingTerm(slot);
+        if(bindingTerm != null){
+            return bindingTerm.unify(subsMap.getBindingOffset(slot), term, termOffset, subsMap);
         }
-        else{
-            //If the variable is not bound, and doesn't occur in Term term
-            subsMap.bind(this, term);
-            //Propagate subsitutions through Substitution Map Variables
-            for (Variable var : subsMap.getSubsMap().keySet()) {
-                subsMap.bind(var, subsMap.getBindingTerm(var).replaceVarBindings(subsMap));
+        //If term is a bound variable, unify with what it stands for instead (avoids binding cycles)
+        while(term.isVariable()){
+            int termSlot = ((Variable) term).variableIndex + termOffset;
+            Term termBinding = subsMap.getBindingTerm(termSlot);
+            if(termBinding == null){
+                //Check if the two are the same variable, return the substitution
+                if(termSlot == slot){
+                    return subsMap;
+                }
+                break;
             }
-            return subsMap;
+            termOffset = subsMap.getBindingOffset(termSlot);
+            term = termBinding;
+        }
+        //Occurs check: a variable cannot be bound to a tuple containing it
+        if(term.isTuple() && !((Tuple) term).isGround() && ((Tuple) term).occurs(slot, termOffset, subsMap)){
+            return null;
         }
+        //Bind the variable; the chain of bindings is followed when they are replaced
+        subsMap.bind(slot, term, termOffset);
+        return subsMap;
     }
     
     @Override
-    public Term replaceVarBindings(SubstitutionMap subsMap){
+    public Term replaceVarBindings(int offset, SubstitutionMap subsMap){
+        int slot = variableIndex + offset;
         //Check if (this) variable is already bound, if so, replace var bindings in its binding recursively
-        if(subsMap.isBound(this)){
-            Term bindingTerm = subsMap.getBindingTerm(this);
-            return subsMap.getBindingTerm(this).replaceVarBindings(subsMap);
+        Term bindingTerm = subsMap.getBindingTerm(slot);
+        if(bindingTerm != null){
+            int bindingOffset = subsMap.getBindingOffset(slot);
+            //Variables already renamed into the new clause are final
+            if(bindingOffset == SubstitutionMap.RENAMED){
+                return bindingTerm;
+            }
+            return bindingTerm.replaceVarBindings(bindingOffset, subsMap);
         }
-        //If the variable is not bound, return copy of itself
-        else{
-            return this;
+        //If the variable is not bound, rename it to the next variable of the new clause
+        return subsMap.rename(slot);
+    }
+    
+    /**
+     * Method to check whether the variable occurs in a term, following bindings
+     * @param slot the slot of the variable
+     * @param term the term
+     * @param termOffset the offset of the term
+     * @param subsMap the substitution map
+     * @return true iff the variable occurs in the term
+     */
+    static boolean occursIn(int slot, Term term, int termOffset, SubstitutionMap subsMap){
+        if(term.isVariable()){
+            int termSlot = ((Variable) term).variableIndex + termOffset;
+            Term bindingTerm = subsMap.getBindingTerm(termSlot);
+            if(bindingTerm == null){
+                return termSlot == slot;
+            }
+            return occursIn(slot, bindingTerm, subsMap.getBindingOffset(termSlot), subsMap);
+        }
+        if(term.isTuple()){
+            return ((Tuple) term).occurs(slot, termOffset, subsMap);
         }
+        return false;
     }
     
     @Override
@@ -257,9 +380,16 @@ class Variable implements Term{
         return getVariableName();
     }
     
+    @Override
+    public int getSymbolId(){
+        //Variables are not interned in the SymbolTable
+        return -1;
+    }
+    
     @Override
     public Variable copy(){
-        return new Variable(variableName);
+        //Variables are immutable, so they can be shared
+        return this;
     }
 }
 
@@ -272,6 +402,8 @@ class Tuple implements Term{
     
     private Constant functor;
     private ArrayList<Term> parameters = new ArrayList<>();
+    //True iff the Tuple contains no variables
+    private boolean ground = true;
     
     /**
      * Tuple Constructor
@@ -281,6 +413,13 @@ class Tuple implements Term{
     public Tuple(Constant functorName, ArrayList<Term> termParameters){
         this.functor = functorName;
         this.parameters = termParameters;
+        for (int i = 0; i < termParameters.size(); i++) {
+            Term parameter = termParameters.get(i);
+            if(parameter.isVariable() || (parameter.isTuple() && !((Tuple) parameter).isGround())){
+                this.ground = false;
+                break;
+            }
+        }
     }
     
     /**
@@ -300,6 +439,30 @@ class Tuple implements Term{
         return functor.getConstantName();
     }
     
+    /**
+     * Getter method to retrieve the symbol ID of the Tuple's functor
+     * @return The Tuple's functor ID
+     */
+    public int getFunctorId(){
+        return functor.getSymbolId();
+    }
+    
+    /**
+     * Getter method to retrieve the Tuple's functor
+     * @return The Tuple's functor
+     */
+    public Constant getFunctor(){
+        return functor;
+    }
+    
+    /**
+     * Method to check whether the Tuple contains no variables
+     * @return true iff the Tuple is ground
+     */
+    public boolean isGround(){
+        return ground;
+    }
+    
     /**
      * Getter method to retrieve parameter at specified index
      * @param index the index of the parameter
@@ -312,7 +475,7 @@ class Tuple implements Term{
     @Override
     public int hashCode() {
         int hash = 3;
-        hash = 73 * hash + this.getFunctorName().hashCode();
+        hash = 73 * hash + this.getFunctorId();
         
         for (int i = 0; i < this.getNumParameters(); i++) {
             hash = 73 * hash + this.getParameter(i).hashCode();
@@ -332,7 +495,7 @@ class Tuple implements Term{
             return false;
         }
         final Tuple other = (Tuple) obj;
-        return this.getFunctorName().equals(other.getFunctorName()) && this.getParameters().equals(other.getParameters());
+        return this.getFunctorId() == other.getFunctorId() && this.getParameters().equals(other.getParameters());
     }
 
     @Override
@@ -355,50 +518,74 @@ class Tuple implements Term{
         return parameterString;
     }
     
+    /**
+     * Method to check whether a variable slot occurs in (this) tuple, following bindings
+     * @param slot the slot of the variable
+     * @param offset the offset of (this) tuple
+     * @param subsMap the substitution map
+     * @return true iff the variable occurs in the tuple
+     */
+    public boolean occurs(int slot, int offset, SubstitutionMap subsMap){
+        if(ground){
+            return false;
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            if(Variable.occursIn(slot, parameters.get(i), offset, subsMap)){
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /***********************METHODS INHERITED FROM TERM***********************/
     @Override
-    public SubstitutionMap unify(Term term, SubstitutionMap subsMap){
-        if(this.equals(term)){
-            return subsMap;
+    public SubstitutionMap unify(int offset, Term term, int termOffset, SubstitutionMap subsMap){
+        //Ground tuples unify iff they are equal (whatever their offsets)
+        if(ground && !term.isVariable() && (!term.isTuple() || ((Tuple) term).isGround())){
+            return this.equals(term) ? subsMap : null;
         }
         //Check if term is also a Tuple; if so check length, and iterate over parameters
-        else if(term.isTuple()){
+        if(term.isTuple()){
             Tuple termTuple = (Tuple) term;
-            String termTuplePredicate = termTuple.getFunctorName();
-            if(!(this.getNumParameters() == termTuple.getNumParameters()) || !(this.getFunctorName().equals(termTuplePredicate))){
+            if(this.getFunctorId() != termTuple.getFunctorId() || this.getNumParameters() != termTuple.getNumParameters()){
                 return null;
             }
             //Attempt to unify each parameter in (this) tuple with its counterpart
             for (int i = 0; i < this.getNumParameters(); i++) {
-                subsMap = this.getParameter(i).unify(termTuple.getParameter(i), subsMap);
+                subsMap = this.getParameter(i).unify(offset, termTuple.getParameter(i), termOffset, subsMap);
                 if(subsMap == null){
                     return null;
                 }
             }
             return subsMap;
         }
+        //Let a variable bind itself to (this) tuple
+        else if(term.isVariable()){
+            return term.unify(termOffset, this, offset, subsMap);
+        }
         else{
             return null;
         }
     }
     
     @Override
-    public Term replaceVarBindings(SubstitutionMap subsMap){
+    public Term replaceVarBindings(int offset, SubstitutionMap subsMap){
+        //Ground tuples have nothing to bind and are shared as they are
+        if(ground){
+            return this;
+        }
         //For tuples, replace var bindings in all its terms recursively
-        ArrayList<Term> bindedParameters = new ArrayList<>();
-        ArrayList<Term> currentParams = new ArrayList<>(this.getParameters());
+        ArrayList<Term> bindedParameters = new ArrayList<>(parameters.size());
         //Loop over terms and bind the terms
-        for (int i = 0; i < currentParams.size(); i++) {
-            Term newBindedParam = currentParams.get(i).replaceVarBindings(subsMap);
+        for (int i = 0; i < parameters.size(); i++) {
+            Term newBindedParam = parameters.get(i).replaceVarBindings(offset, subsMap);
             bindedParameters.add(newBindedParam);
         }
         //Return a new sentence with its parameters binded
-        Constant bindedConstant = new Constant(this.functor.getConstantName());
-        Tuple bindedTuple = new Tuple(bindedConstant, bindedParameters);
+        Tuple bindedTuple = new Tuple(this.functor, bindedParameters);
         return bindedTuple;
     }
     
-    
     @Override
     public List<Term> getParameters(){
         return this.parameters;
@@ -409,6 +596,11 @@ class Tuple implements Term{
         return getFunctorName();
     }
     
+    @Override
+    public int getSymbolId(){
+        return getFunctorId();
+    }
+    
     @Override
     public boolean isTuple(){
         return true;
@@ -431,8 +623,7 @@ class Tuple implements Term{
         for(int i = 0; i < parameters.size(); i++){
             newParameters.add(parameters.get(i));
         }
-        Constant newFunctor = new Constant(this.getFunctorName());
-        return new Tuple(newFunctor, newParameters);
+        return new Tuple(this.functor, newParameters);
     }
 }
 
@@ -490,7 +681,7 @@ class Literal{
         }
         
         int hash = 7;
-        hash = 29 * hash + this.getLiteral().getTermValue().hashCode();
+        hash = 29 * hash + this.getLiteral().getSymbolId();
         hash += signValue.hashCode();
         
         List<Term> parameters = this.getLiteral().getParameters();
@@ -517,7 +708,7 @@ class Literal{
         if (this.getSign() != other.getSign()) {
             return false;
         }
-        if (!Objects.equals(this.getLiteral().getTermValue(), other.getLiteral().getTermValue())) {
+        if (this.getLiteral().getSymbolId() != other.getLiteral().getSymbolId()) {
             return false;
         }
         if (!Objects.equals(this.getLiteral().getParameters(), other.getLiteral().getParameters())) {
@@ -538,12 +729,17 @@ class Literal{
     
     /**
      * Method to replace the variable bindings within the Literal
+     * @param offset the offset of the clause use the Literal belongs to
      * @param subsMap the given substitution map {var/Term}
      * @return a new Literal with its variables replaced with respective bindings
      */
-    public Literal replaceVarBindings(SubstitutionMap subsMap){
+    public Literal replaceVarBindings(int offset, SubstitutionMap subsMap){
         //Create a a copy of the literal term, replace var bindings of its term
-        Term bindedLitTerm = this.getLiteral().replaceVarBindings(subsMap);
+        Term bindedLitTerm = this.getLiteral().replaceVarBindings(offset, subsMap);
+        //Literals left unchanged (e.g. ground ones) are shared
+        if(bindedLitTerm == this.getLiteral()){
+            return this;
+        }
         return new Literal(this.getSign(), bindedLitTerm);
     }
 }
@@ -559,6 +755,13 @@ class Clause implements Comparable<Clause>{
     //Store positive and negative literals
     private ArrayList<Literal> positiveLiterals = new ArrayList<>();
     private ArrayList<Literal> negativeLiterals = new ArrayList<>();
+    //Canonical (variant-independent) encoding and its 64-bit fingerprint, computed once
+    private int[] canonicalCode;
+    private long fingerprint;
+    //Number of clause-local variable indices used (highest index + 1)
+    private int numVariables;
+    //Shared comparator used to sort literals into canonical order
+    private static final LiteralComparator CANONICAL_ORDER = new LiteralComparator();
     
     /**
      * Clause constructor
@@ -574,61 +777,141 @@ class Clause implements Comparable<Clause>{
             else{
                 negativeLiterals.add(literal);
             }
+            numVariables = Math.max(numVariables, countVariables(literal.getLiteral()));
         }
+        computeCanonicalCode();
     }
     
     /**
-     * standardize Standardizes the Clause to allow for hashcode() and equals() to work as required
-     * @return teh standardized Clause
+     * Method to find the number of variable indices used within a term
+     * @param term the term
+     * @return the highest variable index within the term plus one (0 if none)
      */
-    public Clause standardize(){
-        LinkedHashSet<Literal> newSet = new LinkedHashSet<>();
-        HashMap<Variable, Variable> varAssignments = new HashMap<>();
-        ArrayList<Literal> newSetList = new ArrayList<Literal>();
-        //Index to keep track of variable names
-        int index = 0;
-        for (Literal literal : this.axiomSet) {
-            Tuple literalTuple = (Tuple) literal.getLiteral().copy();
-            boolean literalSign = literal.getSign();
-            String predicate = literalTuple.getFunctorName();
-            Constant newPredicate = new Constant(predicate);
-            ArrayList<Term> parameters = new ArrayList<>();
-            //Loop over term parameters and generate new, standardized ones
-            for (int i = 0; i < literalTuple.getNumParameters(); i++) {
-                Term currTerm = literalTuple.getParameter(i);
-                if(currTerm.isVariable()){
-                    Variable termVar = (Variable) currTerm;
-                    if(varAssignments.containsKey(termVar)){
-                        parameters.add(varAssignments.get(termVar).copy());
-                    }
-                    else{
-                        String standardVarName = "x"+index;
-                        Variable newVar = new Variable(standardVarName);
-                        parameters.add(newVar);
-                        varAssignments.put(termVar, newVar);
-                        index++;
-                    }
-                }
-                else{
-                    parameters.add(currTerm);
-                }
+    private static int countVariables(Term term){
+        if(term.isVariable()){
+            return ((Variable) term).getIndex() + 1;
+        }
+        int count = 0;
+        if(term.isTuple() && !((Tuple) term).isGround()){
+            for (Term parameter : term.getParameters()) {
+                count = Math.max(count, countVariables(parameter));
             }
-            Tuple standardTuple = new Tuple(newPredicate.copy(), parameters);
-            Literal standardLiteral = new Literal(literalSign, standardTuple);
-            newSetList.add(standardLiteral);
         }
-        //sort the new List
-        LiteralComparator newComparator = new LiteralComparator();
-        Collections.sort(newSetList, newComparator);
-        newSet.addAll(newSetList);
-        Clause standardClause = new Clause(newSet);
-        return standardClause;
+        return count;
+    }
+    
+    /**
+     * Getter method to retrieve the number of variable slots the clause needs when used
+     * at an offset (the offset of the next clause standardized apart from it)
+     * @return the highest variable index within the clause plus one
+     */
+    public int getNumVariables(){
+        return numVariables;
     }
     
     /**
      * The empty clause constructor
      */
-    public Clause(){}
+    public Clause(){
+        computeCanonicalCode();
+    }
+    
+    /**
+     * Method to compute the canonical encoding of the Clause once, at construction, so that
+     * hashCode() and equals() never need to standardize the clause. Literals are sorted, then
+     * encoded as symbol IDs with variables numbered in order of first appearance, so that
+     * any two variants of the Clause share the same encoding
+     */
+    private void computeCanonicalCode(){
+        Literal[] sortedLiterals = axiomSet.toArray(new Literal[axiomSet.size()]);
+        Arrays.sort(sortedLiterals, CANONICAL_ORDER);
+        //Size the code first: one sign entry per literal plus the encoding of its term
+        int length = 0;
+        for (Literal literal : sortedLiterals) {
+            length += 1 + codeLength(literal.getLiteral());
+        }
+        int[] code = new int[length];
+        int position = 0;
+        ArrayList<Variable> varOrdinals = new ArrayList<>();
+        for (Literal literal : sortedLiterals) {
+            code[position++] = literal.getSign() ? 1 : 0;
+            position = encodeTerm(literal.getLiteral(), code, position, varOrdinals);
+        }
+        this.canonicalCode = code;
+        //64-bit FNV-1a hash of the canonical encoding
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < code.length; i++) {
+            hash ^= code[i];
+            hash *= 0x100000001b3L;
+        }
+        this.fingerprint = hash;
+    }
+    
+    /**
+     * Method to compute the number of code entries needed to encode a Term
+     * @param term the Term
+     * @return the length of its encoding
+     */
+    private static int codeLength(Term term){
+        if(!term.isTuple()){
+            return 1;
+        }
+        Tuple tuple = (Tuple) term;
+        int length = 2;
+        for (int i = 0; i < tuple.getNumParameters(); i++) {
+            length += codeLength(tuple.getParameter(i));
+        }
+        return length;
+    }
+    
+    /**
+     * Method to write the encoding of a Term into the canonical code: constants and functors
+     * are encoded by symbol ID, variables by their order of first appearance in the Clause
+     * @param term the Term to encode
+     * @param code the code array
+     * @param position the position to write at
+     * @param varOrdinals the ordinals of the variables seen so far
+     * @return the position following the encoded Term
+     */
+    private static int encodeTerm(Term term, int[] code, int position, ArrayList<Variable> varOrdinals){
+        if(term.isVariable()){
+            //Clauses hold few variables, so a linear scan beats hashing
+            int ordinal = varOrdinals.indexOf(term);
+            if(ordinal < 0){
+                ordinal = varOrdinals.size();
+                varOrdinals.add((Variable) term);
+            }
+            code[position++] = (ordinal << 2) | 1;
+        }
+        else if(term.isTuple()){
+            Tuple tuple = (Tuple) term;
+            code[position++] = (tuple.getFunctorId() << 2) | 2;
+            code[position++] = tuple.getNumParameters();
+            for (int i = 0; i < tuple.getNumParameters(); i++) {
+                position = encodeTerm(tuple.getParameter(i), code, position, varOrdinals);
+            }
+        }
+        else{
+            code[position++] = term.getSymbolId() << 2;
+        }
+        return position;
+    }
+    
+    /**
+     * Getter method to retrieve the canonical encoding of the Clause (identical for all its variants)
+     * @return the canonical encoding
+     */
+    public int[] getCanonicalCode(){
+        return canonicalCode;
+    }
+    
+    /**
+     * Getter method to retrieve the 64-bit fingerprint of the canonical encoding
+     * @return the fingerprint
+     */
+    public long getFingerprint(){
+        return fingerprint;
+    }
     
     /**
      * Getter method to retrieve the number of literals within the Clause
@@ -689,9 +972,9 @@ class Clause implements Comparable<Clause>{
     @Override
     public String toString(){
         String axiomString = "{";
-        Iterator clauseIterator = axiomSet.iterator();
+        Iterator<Literal> clauseIterator = axiomSet.iterator();
         while(clauseIterator.hasNext()){
-            Literal next = (Literal) clauseIterator.next();
+            Literal next = clauseIterator.next();
             axiomString += next.toString() + " | ";
         }
         if(axiomString.length() > 3){
@@ -702,11 +985,7 @@ class Clause implements Comparable<Clause>{
 
     @Override
     public int hashCode() {
-        int hash = 7;
-        Clause hashClause = this.standardize();
-        String hashStringClause = hashClause.toString();
-        hash += 59 * hashStringClause.hashCode();
-        return hash;
+        return (int) (fingerprint ^ (fingerprint >>> 32));
     }
 
     @Override
@@ -721,22 +1000,11 @@ class Clause implements Comparable<Clause>{
             return false;
         }
         final Clause other = (Clause) obj;
-        //Standardize clauses before calculating equality
-        Clause standardThis = this.standardize();
-        Clause standardOther = other.standardize();
-        
-        String standardThisString = standardThis.toString();
-        String standardOtherString = standardOther.toString();
-        
-        if(standardThisString.length() == standardOtherString.length()){
-            for(int i = 0; i < standardThisString.length(); i++){
-                if(standardThisString.charAt(i) != standardOtherString.charAt(i)){
-                    return false;
-                }
-            }
-            return true;
+        //Compare the precomputed fingerprints first, then the canonical encodings
+        if(this.fingerprint != other.fingerprint){
+            return false;
         }
-        return false;
+        return Arrays.equals(this.canonicalCode, other.canonicalCode);
     }
     
     /**
@@ -744,11 +1012,11 @@ class Clause implements Comparable<Clause>{
      * @return a new Clause with the same member variable values as (this)
      */
     public Clause copy(){
-        Iterator clauseIterator = axiomSet.iterator();
+        Iterator<Literal> clauseIterator = axiomSet.iterator();
         LinkedHashSet<Literal> newAxiomSet = new LinkedHashSet<Literal>();
         
         while(clauseIterator.hasNext()){
-            Literal nextLiteral = (Literal) clauseIterator.next();
+            Literal nextLiteral = clauseIterator.next();
             Literal newLiteral = nextLiteral.copy();
             newAxiomSet.add(newLiteral);
         }
@@ -768,7 +1036,6 @@ class Clause implements Comparable<Clause>{
  ********************************************************************************/
 class LiteralComparator implements Comparator<Literal>{
     public int compare(Literal literal1, Literal literal2){
-        int compareValue = 0;
        //We will compare literals by their sign first
        if(!literal1.getSign() && literal2.getSign()){
            //Sort negative literals first
@@ -777,26 +1044,19 @@ class LiteralComparator implements Comparator<Literal>{
        else if(literal1.getSign() && !literal2.getSign()){
            return 1;
        }
-       //if both literals have the same sign, compare the Term's predicate value
+       //if both literals have the same sign, compare the Term's predicate ID
        //We know its terms are Tuple's
-       String literal1Name = literal1.getLiteral().getTermValue();
-       String literal2Name = literal2.getLiteral().getTermValue();
-       
-       compareValue = literal1Name.compareTo(literal2Name);
+       int compareValue = Integer.compare(literal1.getLiteral().getSymbolId(), literal2.getLiteral().getSymbolId());
        
        if(compareValue != 0){
            return compareValue;
        }
-       //If the two Tuple's names are the same, compare the arguments
+       //If the two Tuple's predicates are the same, compare the arguments
        else{
-           Tuple literal1Tuple = (Tuple) literal1.getLiteral();
-           Tuple literal2Tuple = (Tuple) literal2.getLiteral();
-           List<Term> parameters1 = literal1Tuple.getParameters();
-           List<Term> parameters2 = literal2Tuple.getParameters();
+           List<Term> parameters1 = literal1.getLiteral().getParameters();
+           List<Term> parameters2 = literal2.getLiteral().getParameters();
            
            //Compare the size of the terms, return the one with most if not equal
-           compareValue = parameters1.size() - parameters2.size();
-           //if equal, compare arguments
            if(parameters1.size() == parameters2.size()){
                return compareLiteralTerms(parameters1, parameters2); 
            }
@@ -807,45 +1067,56 @@ class LiteralComparator implements Comparator<Literal>{
     }
     
     public int compareLiteralTerms(List<Term> parameterList1, List<Term> parameterList2){
-        int compareValue = 0;
         //Only variables or constants inside the Tuples (homework prompt)
         //Variables will be given precedence
         for(int i = 0; i < parameterList1.size(); i++){
             //compare paramater to parameter
             Term currParameterList1 = parameterList1.get(i);
             Term currParameterList2 = parameterList2.get(i);
-            //if both paramteres are constants, compare their names
-            if(currParameterList1.isConstant() && currParameterList2.isConstant()){
-                compareValue = currParameterList1.getTermValue().compareTo(currParameterList2.getTermValue());
+            if(currParameterList1.isVariable() != currParameterList2.isVariable()){
+                return currParameterList1.isVariable() ? -1 : 1;
+            }
+            //if neither paramter is a variable, compare their symbol IDs
+            if(!currParameterList1.isVariable()){
+                int compareValue = Integer.compare(currParameterList1.getSymbolId(), currParameterList2.getSymbolId());
                 if(compareValue != 0){
-                    if(currParameterList1.isConstant()){
-                        compareValue = 1;
-                    }
-                    else{
-                        compareValue = -1;
-                    }
                     return compareValue;
                 }
             }
         }
-        return compareValue;
+        return 0;
     }
 }
 
 /********************************************************************************
  * The Substitution class represents the Substitution Map of Variables to Terms
- * Represented as a HashMap
+ * Represented Prolog-style, as an array of bindings indexed by variable slot
+ * (clause-local variable index plus the offset of the clause use), each with the
+ * offset of the use its term belongs to, plus a trail of the bound slots, so that
+ * binding is O(1) and undoing bindings (after a failed unification, or to reuse
+ * the map) only walks the trail
  ********************************************************************************/
 class SubstitutionMap{
 
-    private HashMap<Variable, Term> substitutionMap = new HashMap<>();
+    //Binding offset of the variables of a clause being built (see rename())
+    public static final int RENAMED = -1;
+    
+    private Term[] bindings = new Term[64];
+    private int[] bindingOffsets = new int[64];
+    private int[] trail = new int[16];
+    private int trailSize;
+    private int renamedCount;
     
     /**
      * Substitution Map Constructor
-     * @param substitution the Substitution Map
+     * @param subsMap the Substitution Map to copy
      */
     public SubstitutionMap(SubstitutionMap subsMap){
-        this.substitutionMap = new HashMap<Variable, Term>(subsMap.substitutionMap);
+        this.bindings = subsMap.bindings.clone();
+        this.bindingOffsets = subsMap.bindingOffsets.clone();
+        this.trail = subsMap.trail.clone();
+        this.trailSize = subsMap.trailSize;
+        this.renamedCount = subsMap.renamedCount;
     }
     
     /**
@@ -854,481 +1125,4722 @@ class SubstitutionMap{
     public SubstitutionMap(){}
     
     /**
-     * Method to bind a variable to a term
-     * @param var the variable to bind
+     * Method to bind a variable slot to a term
+     * @param slot the variable slot to bind
      * @param term the term to bind the variable to
+     * @param termOffset the offset of the clause use the term belongs to
+     */
+    public void bind(int slot, Term term, int termOffset){
+        if(slot >= bindings.length){
+            int newLength = Math.max(slot + 1, bindings.length * 2);
+            bindings = Arrays.copyOf(bindings, newLength);
+            bindingOffsets = Arrays.copyOf(bindingOffsets, newLength);
+        }
+        if(bindings[slot] == null){
+            if(trailSize == trail.length){
+                trail = Arrays.copyOf(trail, trailSize * 2);
+            }
+            trail[trailSize++] = slot;
+        }
+        bindings[slot] = term;
+        bindingOffsets[slot] = termOffset;
+    }
+    
+    /**
+     * Method to check whether a specific variable slot is bound within the Map
+     * @param slot the variable slot
+     * @return true iff the slot is bound
+     */
+    public boolean isBound(int slot){
+        return slot < bindings.length && bindings[slot] != null;
+    }
+    
+    /**
+     * Method to retrieve the term a variable slot is bound to
+     * @param slot the variable slot
+     * @return the binding term of the slot (null if unbound)
      */
-    public void bind(Variable var, Term term){
-        substitutionMap.put(var, term);
+    public Term getBindingTerm(int slot){
+        return slot < bindings.length ? bindings[slot] : null;
     }
     
     /**
-     * Method to check whether a specific variable is bound within the Map
-     * @param var the variable
-     * @return true iff variable var is bound
+     * Method to retrieve the offset of the term a variable slot is bound to
+     * @param slot the (bound) variable slot
+     * @return the offset of the binding term
      */
-    public boolean isBound(Variable var){
-        return substitutionMap.get(var) != null;
+    public int getBindingOffset(int slot){
+        return bindingOffsets[slot];
     }
     
     /**
-     * Method to retrieve the term the variable is bound to
-     * @param var the variable
-     * @return the binding term of variable var
+     * Method to start building a new clause: its variables are numbered from 0
+     * in the order rename() is called
      */
-    public Term getBindingTerm(Variable var){
-        return (Term) substitutionMap.get(var);
+    public void startRenaming(){
+        renamedCount = 0;
     }
     
     /**
-     * Method to retrieve the Map within the Substitution class
-     * @return the HashMap of {var/Term} values
+     * Method to rename an unbound variable slot to the next variable of the clause
+     * being built; the renaming is a binding, so it is undone with the others
+     * @param slot the unbound variable slot
+     * @return the variable of the new clause
      */
-    public Map<Variable, Term> getSubsMap(){
-        return this.substitutionMap;
+    public Variable rename(int slot){
+        Variable renamed = Variable.get(renamedCount++);
+        bind(slot, renamed, RENAMED);
+        return renamed;
+    }
+    
+    /**
+     * Method to mark the current state of the Map, to be restored by undoTo()
+     * @return the mark
+     */
+    public int mark(){
+        return trailSize;
+    }
+    
+    /**
+     * Method to undo every binding made since a mark
+     * @param mark the mark returned by mark()
+     */
+    public void undoTo(int mark){
+        while(trailSize > mark){
+            bindings[trail[--trailSize]] = null;
+        }
     }
     
     public boolean isEmpty(){
-        return this.substitutionMap.isEmpty();
+        return trailSize == 0;
+    }
+    
+    /**
+     * Method to remove all bindings, so that the map can be reused
+     */
+    public void clear(){
+        undoTo(0);
     }
     
     @Override
     public String toString(){
-        return substitutionMap.toString();
+        StringBuilder mapString = new StringBuilder("{");
+        for (int i = 0; i < trailSize; i++) {
+            if(i > 0){
+                mapString.append(", ");
+            }
+            int slot = trail[i];
+            mapString.append("_").append(slot).append("=").append(bindings[slot])
+                    .append("@").append(bindingOffsets[slot]);
+        }
+        return mapString.append("}").toString();
     }  
 }
 
-
 /********************************************************************************
- * The homework class is the "main" class of the homework (the only public class)
- * It contains the main function
+ * The ResolutionWorkspace class holds the scratch buffers reused by one worker
+ * across resolve() calls (it must not be shared between threads)
  ********************************************************************************/
-public class homework {
-    private static final double TOTAL_RES_TIME = 20000;
-    private static final String NOT_ENTAILED = "FALSE";
-    private static final String ENTAILED = "TRUE";
-    //Index for variable standardization
-    private static int currentIndex;
+class ResolutionWorkspace{
+    
+    private SubstitutionMap substitutionMap = new SubstitutionMap();
+    private ArrayList<Literal> literalBuffer = new ArrayList<>();
     
     /**
-     * negateQuery negates the input query (removes or adds '~' as required)
-     * @param query the input query (from input.txt)
-     * @return the negated query
+     * Getter method to retrieve the reusable substitution map
+     * @return the substitution map
      */
-    public static String negateQuery(String query){
-        String negatedQuery = "";
-        if(query.charAt(0) == '~'){
-            negatedQuery = query.substring(1);
-        }
-        else{
-            negatedQuery = '~' + query;
-        }
-        return negatedQuery;
+    public SubstitutionMap getSubstitutionMap(){
+        return substitutionMap;
     }
     
     /**
-     * Code to standardize Clause from KB
-     * @param originalClause the clause you want to standardize
-     * @return the standardized Clause
-     */
-    public static Clause standardizeClause(Clause originalClause){
-        currentIndex++;
-        SubstitutionMap standardizedMap = new SubstitutionMap();
-        //Store all the variables from the clause n a HashSet
-        HashSet<Variable> originalVariableSet = new HashSet<>();
-        //Get the literal set from the clause
-        LinkedHashSet<Literal> clauseLiteralSet = originalClause.getLiterals();
-        //Gather all the variables
-        for (Literal orgLiteral : clauseLiteralSet) {
-            //Every Literal is formed by a tuple
-            Tuple literalTuple = (Tuple) orgLiteral.getLiteral();
-            //Loop through parameters to find variables
-            for(int i = 0; i < literalTuple.getNumParameters(); i++){
-                //If the parameter is a variable, add it to the variable set
-                if(literalTuple.getParameter(i).isVariable()){
-                    originalVariableSet.add( (Variable) literalTuple.getParameter(i));
-                }
-            }
-        }
-        //Loop through the variable set, standardize each value
-        for (Variable orgVariable : originalVariableSet) {
-            if(orgVariable.getVariableName().length() > 1){
-                Variable standardizedVar = new Variable(orgVariable.getVariableName().substring(0, 1) + currentIndex);
-                //Add the new variable and its substitution to the map
-                standardizedMap.bind(orgVariable, standardizedVar);
-            }
-            else{
-                Variable standardizedVar = new Variable(orgVariable.getVariableName() + currentIndex);
-                //Add the new variable and its substitution to the map
-                standardizedMap.bind(orgVariable, standardizedVar);
-            }
-        }
-        //Use the new bindings to substitute variables and generate a new clause
-        if(!standardizedMap.isEmpty()){
-            LinkedHashSet<Literal> standardizedLiteralSet = new LinkedHashSet<>();
-            //Loop through the original literals, replace variables and add to new set
-            for (Literal literal : clauseLiteralSet) {
-                Literal newLiteral = literal.replaceVarBindings(standardizedMap);
-                standardizedLiteralSet.add(newLiteral);
-            }
-            Clause standardizedClause = new Clause(standardizedLiteralSet);
-            return standardizedClause;
-        }
-        return originalClause;
+     * Getter method to retrieve the reusable literal buffer
+     * @return the literal buffer
+     */
+    public ArrayList<Literal> getLiteralBuffer(){
+        return literalBuffer;
     }
+}
+
+/********************************************************************************
+ * The SymbolTable class interns predicate and constant names to dense integer IDs,
+ * so that Terms compare and hash by int. Constants are shared per name, and ground
+ * Tuples are hash-consed (one instance per ground term); Variables are clause-local
+ * and not interned
+ ********************************************************************************/
+class SymbolTable{
+    
+    private HashMap<String, Integer> symbolIds = new HashMap<>();
+    private ArrayList<String> symbolNames = new ArrayList<>();
+    private ArrayList<Term> symbolTerms = new ArrayList<>();
+    //Concurrent, so that parsers running in parallel do not serialize on hash-consing
+    private ConcurrentHashMap<Tuple, Tuple> groundTuples = new ConcurrentHashMap<>();
     
     /**
-     * Resolve takes in two Clauses and generates a HashSet of resulting knowledge as Clauses
-     * @param outerClause Clause to be resolved
-     * @param innerClause Clause to be resolved 
-     * @return the Set of all new knowledge acquired through the two given clauses
+     * Method to intern a name, assigning it the next ID if it has not been seen
+     * @param name the name to intern
+     * @return the ID of the name
      */
-    public static LinkedHashSet<Clause> resolve(Clause outerClause, Clause innerClause){
-        //Instantiate the resolvents set
-        LinkedHashSet<Clause> resolventsSet = new LinkedHashSet<>();
-        //Array of all items
-        ArrayList<Literal> allLiterals = new ArrayList<>();
-        //Get positive and negative terms from poth clauses for subsequent loops
-        allLiterals.addAll(outerClause.getPositiveTerms());
-        allLiterals.addAll(innerClause.getPositiveTerms());
-        allLiterals.addAll(outerClause.getNegativeTerms());
-        allLiterals.addAll(innerClause.getNegativeTerms());
-        //We must resolve positive literals of the outerClause with negative of the innerClause
-        //We must also resolve positive literals of the innerClause with negative of the outerClause
-        ArrayList<Literal> positiveLiteralsOuter = new ArrayList<>(outerClause.getPositiveTerms());
-        ArrayList<Literal> negativeLiteralsInner = new ArrayList<>(innerClause.getNegativeTerms());
-        ArrayList<Literal> negativeLiteralsOuter = new ArrayList<>(outerClause.getNegativeTerms());
-        ArrayList<Literal> positiveLiteralsInner = new ArrayList<>(innerClause.getPositiveTerms());    
-        //Resolve positive outer with negative inner
-        for (int posOuter = 0; posOuter < positiveLiteralsOuter.size(); posOuter++) {
-            for (int negInner = 0; negInner < negativeLiteralsInner.size(); negInner++) {
-                //Create a new substitution map for each unification attempt
-                SubstitutionMap resolveMap = new SubstitutionMap();
-                //Get the Terms and attempt unification
-                Term outerPosTerm = positiveLiteralsOuter.get(posOuter).getLiteral();
-                Term innerNegTerm = negativeLiteralsInner.get(negInner).getLiteral();
-                //if the attempted substitution is not null, propagate
-                if(outerPosTerm.unify(innerNegTerm, resolveMap) != null){
-                    LinkedHashSet<Literal> resLiteralSet = new LinkedHashSet<>();
-                    ArrayList<Literal> resLiteralList = new ArrayList<>();
-                    //Loop through all literals, add all items to new list (except unified terms)
-                    for (int allLitsIndex = 0; allLitsIndex < allLiterals.size(); allLitsIndex++) {
-                        //If the current literal is not one of the unified terms, add it with its bindings replaced 
-                        if(!(allLiterals.get(allLitsIndex).equals(positiveLiteralsOuter.get(posOuter))) && !(allLiterals.get(allLitsIndex).equals(negativeLiteralsInner.get(negInner)))){
-                            resLiteralList.add(allLiterals.get(allLitsIndex).replaceVarBindings(resolveMap));
-                        }
-                    }
-                    //Sort the list and add to hashset
-                    LiteralComparator newComparator = new LiteralComparator();
-                    Collections.sort(resLiteralList, newComparator);
-                    resLiteralSet.addAll(resLiteralList);
-                    //Create new Cluase with the literal set
-                    Clause resolventClause = new Clause(resLiteralSet);
-                    Clause standardizedClause = standardizeClause(resolventClause);
-                    resolventsSet.add(standardizedClause);
-                }
-            }
-        }
-        //Resolve negative outer with positive inner
-        for (int negOuter = 0; negOuter < negativeLiteralsOuter.size(); negOuter++) {
-            for (int posInner = 0; posInner < positiveLiteralsInner.size(); posInner++) {
-                //Create a new substitution map for each unification attempt
-                SubstitutionMap resolveMap = new SubstitutionMap();
-                //Get the Terms and attempt unification
-                Term outerNegTerm = negativeLiteralsOuter.get(negOuter).getLiteral();
-                Term innerPosTerm = positiveLiteralsInner.get(posInner).getLiteral();
-                //if the attempted substitution is not null, propagate
-                if(outerNegTerm.unify(innerPosTerm, resolveMap) != null){
-                    LinkedHashSet<Literal> resLiteralSet = new LinkedHashSet<>();
-                    ArrayList<Literal> resLiteralList = new ArrayList<>();
-                    //Loop through all literals, add all items to new list (except unified terms)
-                    for (int allLits = 0; allLits < allLiterals.size(); allLits++) {
-                        //If the current literal is not one of the unified terms, add it with its bindings replaced 
-                        if(!(allLiterals.get(allLits).equals(negativeLiteralsOuter.get(negOuter))) && !(allLiterals.get(allLits).equals(positiveLiteralsInner.get(posInner)))){
-                            resLiteralList.add(allLiterals.get(allLits).replaceVarBindings(resolveMap));
-                        }
-                    }
-                    //Sort the list and add to hashset
-                    LiteralComparator newComparator = new LiteralComparator();
-                    Collections.sort(resLiteralList, newComparator);
-                    resLiteralSet.addAll(resLiteralList);
-                    //Create new Cluase with the literal set
-                    Clause resolventClause = new Clause(resLiteralSet);
-                    Clause standardizedClause = standardizeClause(resolventClause);
-                    resolventsSet.add(standardizedClause);
-                }
-            }
+    public synchronized int intern(String name){
+        Integer id = symbolIds.get(name);
+        if(id == null){
+            id = symbolNames.size();
+            symbolIds.put(name, id);
+            symbolNames.add(name);
+            symbolTerms.add(null);
         }
-        return resolventsSet;
+        return id;
     }
     
     /**
-     * The Resolution method
-     * @param knowledgeBase the standardized (KB^~alpha) knowledge base
-     * @return true iff the Knowledge Base entails alpha (KB |= alpha)
+     * Getter method to retrieve the name behind a symbol ID
+     * @param id the symbol ID
+     * @return the name
      */
-    public static boolean resolution(LinkedHashSet<Clause> knowledgeBase){
-        //Track time to kill infinite loops
-        double startTime = System.currentTimeMillis();
-        //Initiate do-loop to find resolvents for each pair of clauses in the KB
-        do{
-            //Create the 'new' set
-            LinkedHashSet<Clause> newSet = new LinkedHashSet<>();
-            //ArrayList for iterating
-            ArrayList<Clause> kbArrayList = new ArrayList<>();
-            kbArrayList.addAll(knowledgeBase);
-            Collections.sort(kbArrayList);
-            for(int i = 0; i < kbArrayList.size() - 1; i++){
-                Clause outerClause = kbArrayList.get(i);
-                for(int j = i + 1; j < kbArrayList.size(); j ++){
-                    Clause innerClause = kbArrayList.get(j);
-                    ArrayList<Literal> outerLiterals = new ArrayList<>(outerClause.getLiterals());
-                    ArrayList<Literal> innerLiterals = new ArrayList<>(innerClause.getLiterals());
-                    boolean validCombo = false;
-                    //MAKE INTO ARRAYLISTS
-                    //Check whether unification is viable between these two clauses
-                    for (int outer = 0; outer < outerLiterals.size(); outer++) {
-                        for (int inner = 0; inner < innerLiterals.size(); inner++) {
-                            if(outerLiterals.get(outer).getLiteral().getTermValue().equals(innerLiterals.get(inner).getLiteral().getTermValue())){
-                                if(outerLiterals.get(outer).getSign() != innerLiterals.get(inner).getSign()){
-                                    validCombo = true;
-                                }
-                            } 
-                        } 
-                    }
-                    //If the combination is potentially valid (i.e complementary predicates found) run resolve
-                    if(validCombo){
-                        //Instantiate the Resolvents LinkedHashSet and call resolve
-                        LinkedHashSet<Clause> resolventsSet = new LinkedHashSet<>();
-                        /***********************RESOLVE***********************/
-                        resolventsSet = resolve(outerClause, innerClause);
-                        int resolventSetSize = resolventsSet.size();
-                        if(resolventSetSize > 0){
-                            for (Clause clause : resolventsSet) {
-                                if(clause.isEmpty()){
-                                    return true;
-                                }
-                            }
-                            //new U resolvents
-                            newSet.addAll(resolventsSet);
-                        }
-                    }
-                    double currTime = System.currentTimeMillis();
-                    if((currTime - startTime) > TOTAL_RES_TIME){
-                        return false;
-                    }
-                }
-            }
-            //Check if new is a subset of clauses
-            //if new is a subset of clauses in the KB, return false
-            if(knowledgeBase.containsAll(newSet)){
-                return false;
-            }
-            //Add the new set to the knowledge base and loop
-            knowledgeBase.addAll(newSet);
-        } while (true);
+    public synchronized String getName(int id){
+        return symbolNames.get(id);
     }
     
+    /**
+     * Getter method to retrieve the number of interned symbols
+     * @return the number of symbols
+     */
+    public synchronized int size(){
+        return symbolNames.size();
+    }
     
     /**
-     * Creates the output file with the answers
-     * @param answersList the answer to the ASK question to the KB
+     * Method to retrieve the shared Constant for a name
+     * @param name the name of the constant (or predicate)
+     * @return the interned Constant
      */
-    public static void printOutFile(ArrayList<String> answersList){
-        PrintStream outputFileStream = null;
-        try {
-            outputFileStream = new PrintStream( new FileOutputStream("output.txt"));
-        } catch (FileNotFoundException ex) {
-            Logger.getLogger(homework.class.getName()).log(Level.SEVERE, null, ex);
+    public synchronized Constant getConstant(String name){
+        String trimmedName = name.trim();
+        int id = intern(trimmedName);
+        Term term = symbolTerms.get(id);
+        if(term == null){
+            term = new Constant(trimmedName, id);
+            symbolTerms.set(id, term);
         }
-        for(int i = 0; i < answersList.size(); i++){
-            outputFileStream.println(answersList.get(i));
+        return (Constant) term;
+    }
+    
+    /**
+     * Method to build a Tuple, returning the shared instance if the Tuple is ground
+     * @param functor the functor/predicate of the Tuple
+     * @param parameters the parameters of the Tuple
+     * @return the (hash-consed if ground) Tuple
+     */
+    public Tuple getTuple(Constant functor, ArrayList<Term> parameters){
+        Tuple tuple = new Tuple(functor, parameters);
+        if(!tuple.isGround()){
+            return tuple;
         }
+        Tuple sharedTuple = groundTuples.putIfAbsent(tuple, tuple);
+        return sharedTuple == null ? tuple : sharedTuple;
     }
     
+    /**
+     * Method to look up the shared Constant for a name without interning it
+     * @param name the name of the constant (or predicate)
+     * @return the interned Constant, or null if the name has not been seen
+     */
+    public synchronized Constant lookupConstant(String name){
+        String trimmedName = name.trim();
+        Integer id = symbolIds.get(trimmedName);
+        return id == null ? null : getConstant(trimmedName);
+    }
     
-    public static void printKB(LinkedHashSet<Clause> knowledgeBase){
-        System.out.println("---------KB PRINTER---------");
-        ArrayList<Clause> clauseList = new ArrayList<>();
-        clauseList.addAll(knowledgeBase);
-        Collections.sort(clauseList);
-        LinkedHashSet<Clause> clausePrint = new LinkedHashSet<>();
-        clausePrint.addAll(clauseList);
-        
-        Iterator kbIterator = clausePrint.iterator();
-        while(kbIterator.hasNext()){
-            System.out.println(kbIterator.next());
-        }
+    /**
+     * Method to look up the shared instance of a ground Tuple without hash-consing it
+     * @param tuple the ground Tuple
+     * @return the shared instance, or null if the Tuple has not been seen
+     */
+    public Tuple lookupTuple(Tuple tuple){
+        return groundTuples.get(tuple);
     }
+}
+
+/********************************************************************************
+ * The QuerySymbolTable class is a per-query overlay over the SymbolTable of a KB:
+ * names the KB knows resolve to its shared Constants and Tuples, while the others
+ * get IDs counting down from MAX_SYMBOL_ID, so that asking about unseen names
+ * never grows the KB's table. Not thread-safe, a query is parsed by one thread
+ ********************************************************************************/
+class QuerySymbolTable extends SymbolTable{
     
+    //Below 2^29, so that every symbol code of the indexes still fits in an int
+    public static final int MAX_SYMBOL_ID = (1 << 29) - 1;
     
-    public static void main(String[] args) {
-        //Arraylist to store answers to different queries (i.e. TRUE, FALSE, TRUE, etc.)
-        ArrayList<String> answersList = new ArrayList<String>();
-        //Initialize the KB
-        LinkedHashSet<Clause> knowledgeBase = new LinkedHashSet<>();
-        //Pattern Objet for parsing sentences
-        String regexElement = "[A-Za-z]+";
-        Pattern regexPattern = Pattern.compile(regexElement);
-        Matcher patternMatcher;
+    private SymbolTable baseSymbols;
+    private HashMap<String, Constant> querySymbols = new HashMap<>();
+    private HashMap<Integer, String> queryNames = new HashMap<>();
+    private HashMap<Tuple, Tuple> queryTuples = new HashMap<>();
+    
+    /**
+     * QuerySymbolTable constructor
+     * @param baseSymbols the SymbolTable of the KB, left as it is
+     */
+    public QuerySymbolTable(SymbolTable baseSymbols){
+        this.baseSymbols = baseSymbols;
+    }
+    
+    @Override
+    public int intern(String name){
+        return getConstant(name).getSymbolId();
+    }
+    
+    @Override
+    public String getName(int id){
+        String name = queryNames.get(id);
+        return name != null ? name : baseSymbols.getName(id);
+    }
+    
+    @Override
+    public int size(){
+        return baseSymbols.size() + querySymbols.size();
+    }
+    
+    @Override
+    public Constant getConstant(String name){
+        String trimmedName = name.trim();
+        Constant constant = baseSymbols.lookupConstant(trimmedName);
+        if(constant == null){
+            constant = querySymbols.get(trimmedName);
+        }
+        if(constant == null){
+            constant = new Constant(trimmedName, MAX_SYMBOL_ID - querySymbols.size());
+            querySymbols.put(trimmedName, constant);
+            queryNames.put(constant.getSymbolId(), trimmedName);
+        }
+        return constant;
+    }
+    
+    @Override
+    public Tuple getTuple(Constant functor, ArrayList<Term> parameters){
+        Tuple tuple = new Tuple(functor, parameters);
+        if(!tuple.isGround()){
+            return tuple;
+        }
+        Tuple sharedTuple = baseSymbols.lookupTuple(tuple);
+        if(sharedTuple == null){
+            sharedTuple = queryTuples.putIfAbsent(tuple, tuple);
+        }
+        return sharedTuple == null ? tuple : sharedTuple;
+    }
+    
+    @Override
+    public Constant lookupConstant(String name){
+        String trimmedName = name.trim();
+        Constant constant = baseSymbols.lookupConstant(trimmedName);
+        return constant != null ? constant : querySymbols.get(trimmedName);
+    }
+    
+    @Override
+    public Tuple lookupTuple(Tuple tuple){
+        Tuple sharedTuple = baseSymbols.lookupTuple(tuple);
+        return sharedTuple != null ? sharedTuple : queryTuples.get(tuple);
+    }
+}
+
+/********************************************************************************
+ * The IndexedLiteral class pairs an indexed Literal with the Clause holding it
+ ********************************************************************************/
+class IndexedLiteral{
+    
+    private Clause clause;
+    private Literal literal;
+    
+    /**
+     * IndexedLiteral constructor
+     * @param clause the clause holding the literal
+     * @param literal the literal
+     */
+    public IndexedLiteral(Clause clause, Literal literal){
+        this.clause = clause;
+        this.literal = literal;
+    }
+    
+    /**
+     * Getter method to retrieve the clause holding the literal
+     * @return the clause
+     */
+    public Clause getClause(){
+        return clause;
+    }
+    
+    /**
+     * Getter method to retrieve the indexed literal
+     * @return the literal
+     */
+    public Literal getLiteral(){
+        return literal;
+    }
+}
+
+/********************************************************************************
+ * The DiscriminationTree class indexes the argument lists of literals sharing a
+ * predicate and sign. Arguments are flattened in preorder, constants and functors
+ * label the edges and variables share a single wildcard edge, so that retrieval
+ * only returns literals whose arguments could unify with the query's
+ ********************************************************************************/
+class DiscriminationTree{
+    
+    /**
+     * A node of the tree; the arity is that of the symbol labelling the edge into it
+     */
+    private static class Node{
+        private int arity;
+        private HashMap<Integer, Node> children = new HashMap<>();
+        private Node variableChild;
+        private ArrayList<IndexedLiteral> entries = new ArrayList<>();
+    }
+    
+    private Node root = new Node();
+    private int size;
+    
+    /**
+     * Method to compute the edge label of a non-variable term
+     * @param term the constant or tuple
+     * @return the edge label
+     */
+    private static int label(Term term){
+        return (term.getSymbolId() << 1) | (term.isTuple() ? 1 : 0);
+    }
+    
+    /**
+     * Method to flatten the arguments of a Tuple in preorder
+     * @param tuple the tuple
+     * @param flatTerms the list to add the subterms to
+     */
+    private static void flatten(Tuple tuple, ArrayList<Term> flatTerms){
+        for (int i = 0; i < tuple.getNumParameters(); i++) {
+            Term parameter = tuple.getParameter(i);
+            flatTerms.add(parameter);
+            if(parameter.isTuple()){
+                flatten((Tuple) parameter, flatTerms);
+            }
+        }
+    }
+    
+    /**
+     * Method to index a literal
+     * @param indexedLiteral the literal and its clause
+     */
+    public void insert(IndexedLiteral indexedLiteral){
+        Node node = findNode((Tuple) indexedLiteral.getLiteral().getLiteral(), true);
+        node.entries.add(indexedLiteral);
+        size++;
+    }
+    
+    /**
+     * Method to remove an indexed literal
+     * @param clause the clause holding the literal
+     * @param literal the literal
+     */
+    public void remove(Clause clause, Literal literal){
+        Node node = findNode((Tuple) literal.getLiteral(), false);
+        if(node == null){
+            return;
+        }
+        for (int i = 0; i < node.entries.size(); i++) {
+            IndexedLiteral entry = node.entries.get(i);
+            if(entry.getClause() == clause && entry.getLiteral() == literal){
+                node.entries.remove(i);
+                size--;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Method to find the node reached by the arguments of a Tuple
+     * @param tuple the tuple
+     * @param create whether missing nodes should be created
+     * @return the node, or null if it does not exist and create is false
+     */
+    private Node findNode(Tuple tuple, boolean create){
+        ArrayList<Term> flatTerms = new ArrayList<>();
+        flatten(tuple, flatTerms);
+        Node node = root;
+        for (Term term : flatTerms) {
+            Node child = term.isVariable() ? node.variableChild : node.children.get(label(term));
+            if(child == null){
+                if(!create){
+                    return null;
+                }
+                child = new Node();
+                if(term.isVariable()){
+                    node.variableChild = child;
+                }
+                else{
+                    child.arity = term.isTuple() ? ((Tuple) term).getNumParameters() : 0;
+                    node.children.put(label(term), child);
+                }
+            }
+            node = child;
+        }
+        return node;
+    }
+    
+    /**
+     * Getter method to retrieve the number of indexed literals
+     * @return the number of literals
+     */
+    public int size(){
+        return size;
+    }
+    
+    /**
+     * Method to retrieve the indexed literals that may unify with a query Tuple
+     * @param query the query tuple
+     * @param candidates the list to add the candidate literals to
+     */
+    public void getUnifiable(Tuple query, List<IndexedLiteral> candidates){
+        ArrayList<Term> flatTerms = new ArrayList<>();
+        flatten(query, flatTerms);
+        Term[] queryTerms = flatTerms.toArray(new Term[flatTerms.size()]);
+        //Position following each query subterm, used to skip it when matched by a variable
+        int[] nextPosition = new int[queryTerms.length];
+        for (int i = queryTerms.length - 1; i >= 0; i--) {
+            int next = i + 1;
+            if(queryTerms[i].isTuple()){
+                for (int j = 0; j < ((Tuple) queryTerms[i]).getNumParameters(); j++) {
+                    next = nextPosition[next];
+                }
+            }
+            nextPosition[i] = next;
+        }
+        collectUnifiable(root, queryTerms, nextPosition, 0, candidates);
+    }
+    
+    /**
+     * Method to walk the tree along the query terms, collecting the reached entries
+     */
+    private void collectUnifiable(Node node, Term[] queryTerms, int[] nextPosition, int position, List<IndexedLiteral> candidates){
+        if(position == queryTerms.length){
+            candidates.addAll(node.entries);
+            return;
+        }
+        Term queryTerm = queryTerms[position];
+        //A query variable matches any indexed subterm
+        if(queryTerm.isVariable()){
+            skipIndexedTerms(node, 1, queryTerms, nextPosition, position + 1, candidates);
+            return;
+        }
+        //An indexed variable matches the whole query subterm
+        if(node.variableChild != null){
+            collectUnifiable(node.variableChild, queryTerms, nextPosition, nextPosition[position], candidates);
+        }
+        Node child = node.children.get(label(queryTerm));
+        if(child != null){
+            collectUnifiable(child, queryTerms, nextPosition, position + 1, candidates);
+        }
+    }
+    
+    /**
+     * Method to skip a number of whole indexed subterms before resuming the walk along the query
+     */
+    private void skipIndexedTerms(Node node, int pendingTerms, Term[] queryTerms, int[] nextPosition, int resumePosition, List<IndexedLiteral> candidates){
+        if(pendingTerms == 0){
+            collectUnifiable(node, queryTerms, nextPosition, resumePosition, candidates);
+            return;
+        }
+        if(node.variableChild != null){
+            skipIndexedTerms(node.variableChild, pendingTerms - 1, queryTerms, nextPosition, resumePosition, candidates);
+        }
+        for (Node child : node.children.values()) {
+            skipIndexedTerms(child, pendingTerms - 1 + child.arity, queryTerms, nextPosition, resumePosition, candidates);
+        }
+    }
+}
+
+/********************************************************************************
+ * The PredicateIndex class maps each (predicate ID, sign) pair to a
+ * DiscriminationTree of the indexed literals with that predicate and sign, so that
+ * the resolution partners of a clause can be looked up instead of scanned for
+ ********************************************************************************/
+class PredicateIndex{
+    
+    private HashMap<Integer, DiscriminationTree> literalTrees = new HashMap<>();
+    
+    /**
+     * Method to compute the index key of a predicate and sign
+     * @param predicateId the symbol ID of the predicate
+     * @param sign the sign of the literal
+     * @return the index key
+     */
+    private static int key(int predicateId, boolean sign){
+        return (predicateId << 1) | (sign ? 1 : 0);
+    }
+    
+    /**
+     * Method to index every literal of a clause under its (predicate, sign) pair
+     * @param clause the clause to index
+     */
+    public void add(Clause clause){
+        for (Literal literal : clause.getLiterals()) {
+            int literalKey = key(literal.getLiteral().getSymbolId(), literal.getSign());
+            DiscriminationTree literalTree = literalTrees.get(literalKey);
+            if(literalTree == null){
+                literalTree = new DiscriminationTree();
+                literalTrees.put(literalKey, literalTree);
+            }
+            literalTree.insert(new IndexedLiteral(clause, literal));
+        }
+    }
+    
+    /**
+     * Method to remove every literal of an indexed clause from the index
+     * @param clause the clause to remove
+     */
+    public void remove(Clause clause){
+        for (Literal literal : clause.getLiterals()) {
+            DiscriminationTree literalTree = literalTrees.get(key(literal.getLiteral().getSymbolId(), literal.getSign()));
+            if(literalTree != null){
+                literalTree.remove(clause, literal);
+            }
+        }
+    }
+    
+    /**
+     * Method to retrieve the indexed literals complementary to a literal that may unify with it
+     * @param literal the literal to find resolution partners for
+     * @return the candidate literals and their clauses
+     */
+    public ArrayList<IndexedLiteral> getUnifiableComplements(Literal literal){
+        ArrayList<IndexedLiteral> candidates = new ArrayList<>();
+        DiscriminationTree literalTree = literalTrees.get(key(literal.getLiteral().getSymbolId(), !literal.getSign()));
+        if(literalTree != null){
+            literalTree.getUnifiable((Tuple) literal.getLiteral(), candidates);
+        }
+        return candidates;
+    }
+    
+    /**
+     * Method to count the indexed literals complementary to a literal (unifiable or not)
+     * @param literal the literal
+     * @return the number of indexed literals of the same predicate and the opposite sign
+     */
+    public int getComplementCount(Literal literal){
+        DiscriminationTree literalTree = literalTrees.get(key(literal.getLiteral().getSymbolId(), !literal.getSign()));
+        return literalTree == null ? 0 : literalTree.size();
+    }
+}
+
+/********************************************************************************
+ * The Subsumption class checks whether a clause subsumes another, i.e. whether a
+ * substitution maps each literal of the general clause onto a distinct literal of
+ * the specific clause (the variables of the specific clause are never bound)
+ ********************************************************************************/
+class Subsumption{
+    
+    /**
+     * Method to check whether a clause subsumes another
+     * @param generalClause the candidate general clause
+     * @param specificClause the candidate specific clause
+     * @param bindings the (reusable) substitution map used for matching, left as it was found
+     * @return true iff generalClause subsumes specificClause
+     */
+    public static boolean subsumes(Clause generalClause, Clause specificClause, SubstitutionMap bindings){
+        if(generalClause.getClauseSize() > specificClause.getClauseSize()){
+            return false;
+        }
+        Literal[] generalLiterals = generalClause.getLiterals().toArray(new Literal[generalClause.getClauseSize()]);
+        Literal[] specificLiterals = specificClause.getLiterals().toArray(new Literal[specificClause.getClauseSize()]);
+        boolean[] usedLiterals = new boolean[specificLiterals.length];
+        int mark = bindings.mark();
+        boolean subsumed = matchLiterals(generalLiterals, 0, specificLiterals, usedLiterals, bindings);
+        bindings.undoTo(mark);
+        return subsumed;
+    }
+    
+    /**
+     * Method to match the general literals from index onwards, backtracking over the choice of specific literal
+     * @return true iff a consistent matching of all remaining general literals exists
+     */
+    private static boolean matchLiterals(Literal[] generalLiterals, int index, Literal[] specificLiterals, boolean[] usedLiterals,
+            SubstitutionMap bindings){
+        if(index == generalLiterals.length){
+            return true;
+        }
+        Literal generalLiteral = generalLiterals[index];
+        for (int j = 0; j < specificLiterals.length; j++) {
+            Literal specificLiteral = specificLiterals[j];
+            if(usedLiterals[j] || specificLiteral.getSign() != generalLiteral.getSign()
+                    || specificLiteral.getLiteral().getSymbolId() != generalLiteral.getLiteral().getSymbolId()){
+                continue;
+            }
+            int mark = bindings.mark();
+            if(matchTerm(generalLiteral.getLiteral(), specificLiteral.getLiteral(), bindings)){
+                usedLiterals[j] = true;
+                if(matchLiterals(generalLiterals, index + 1, specificLiterals, usedLiterals, bindings)){
+                    return true;
+                }
+                usedLiterals[j] = false;
+            }
+            //Undo the bindings made by the failed attempt
+            bindings.undoTo(mark);
+        }
+        return false;
+    }
+    
+    /**
+     * Method to match a general term onto a specific term, binding variables of the general term only
+     * @return true iff the general term (under the bindings) equals the specific term
+     */
+    private static boolean matchTerm(Term generalTerm, Term specificTerm, SubstitutionMap bindings){
+        if(generalTerm.isVariable()){
+            //Only the general clause's variables (at offset 0) are bound: the specific terms are taken
+            //as they are, so the variables of both clauses never meet within the map
+            int slot = ((Variable) generalTerm).getIndex();
+            Term boundTerm = bindings.getBindingTerm(slot);
+            if(boundTerm != null){
+                return boundTerm.equals(specificTerm);
+            }
+            bindings.bind(slot, specificTerm, 0);
+            return true;
+        }
+        if(generalTerm.isTuple()){
+            if(!specificTerm.isTuple() || generalTerm.getSymbolId() != specificTerm.getSymbolId()){
+                return false;
+            }
+            Tuple generalTuple = (Tuple) generalTerm;
+            Tuple specificTuple = (Tuple) specificTerm;
+            if(generalTuple.getNumParameters() != specificTuple.getNumParameters()){
+                return false;
+            }
+            for (int i = 0; i < generalTuple.getNumParameters(); i++) {
+                if(!matchTerm(generalTuple.getParameter(i), specificTuple.getParameter(i), bindings)){
+                    return false;
+                }
+            }
+            return true;
+        }
+        return generalTerm.equals(specificTerm);
+    }
+}
+
+/********************************************************************************
+ * The FeatureVectorIndex class stores clauses in a trie keyed on a vector of
+ * clause features that can only grow under subsumption (literal counts, constant
+ * occurrences, term depth, literal counts per predicate/sign bucket). A clause can
+ * only subsume clauses whose features are all at least its own, so a subsumption
+ * query only visits the branches of the trie that satisfy this bound
+ ********************************************************************************/
+class FeatureVectorIndex{
+    
+    private static final int PREDICATE_BUCKETS = 8;
+    private static final int NUM_FEATURES = 5 + PREDICATE_BUCKETS;
+    
+    /**
+     * A node of the trie; leaves hold the clauses sharing a feature vector
+     */
+    private static class Node{
+        private TreeMap<Integer, Node> children = new TreeMap<>();
+        private ArrayList<Clause> clauses = new ArrayList<>();
+    }
+    
+    private Node root = new Node();
+    private int size;
+    
+    /**
+     * Method to compute the feature vector of a clause
+     * @param clause the clause
+     * @return its feature vector
+     */
+    public static int[] features(Clause clause){
+        int[] features = new int[NUM_FEATURES];
+        features[0] = clause.getClauseSize();
+        features[1] = clause.getNumPositiveTerms();
+        features[2] = clause.getNumNegativeTerms();
+        for (Literal literal : clause.getLiterals()) {
+            features[3] += countConstants(literal.getLiteral());
+            features[4] = Math.max(features[4], depth(literal.getLiteral()));
+            int predicateKey = (literal.getLiteral().getSymbolId() << 1) | (literal.getSign() ? 1 : 0);
+            features[5 + (predicateKey % PREDICATE_BUCKETS)]++;
+        }
+        return features;
+    }
+    
+    /**
+     * Method to count the constant occurrences within a term
+     */
+    private static int countConstants(Term term){
+        if(term.isConstant()){
+            return 1;
+        }
+        int count = 0;
+        if(term.isTuple()){
+            for (Term parameter : term.getParameters()) {
+                count += countConstants(parameter);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Method to compute the depth of a term (the depth of a predicate's arguments)
+     */
+    private static int depth(Term term){
+        int depth = 0;
+        if(term.isTuple()){
+            for (Term parameter : term.getParameters()) {
+                depth = Math.max(depth, 1 + depth(parameter));
+            }
+        }
+        return depth;
+    }
+    
+    /**
+     * Method to index a clause
+     * @param clause the clause
+     * @param features the feature vector of the clause
+     */
+    public void insert(Clause clause, int[] features){
+        Node node = root;
+        for (int level = 0; level < NUM_FEATURES; level++) {
+            Node child = node.children.get(features[level]);
+            if(child == null){
+                child = new Node();
+                node.children.put(features[level], child);
+            }
+            node = child;
+        }
+        node.clauses.add(clause);
+        size++;
+    }
+    
+    /**
+     * Getter method to retrieve the number of indexed clauses
+     * @return the number of clauses
+     */
+    public int size(){
+        return size;
+    }
+    
+    /**
+     * Method to find an indexed clause subsuming the given clause
+     * @param clause the clause
+     * @param features the feature vector of the clause
+     * @param bindings the substitution map used for matching
+     * @return a subsuming clause, or null if there is none
+     */
+    public Clause findSubsuming(Clause clause, int[] features, SubstitutionMap bindings){
+        return findSubsuming(root, 0, clause, features, bindings, Collections.<Clause>emptySet());
+    }
+    
+    /**
+     * Method to find an indexed clause subsuming the given clause, ignoring some of the indexed clauses
+     * @param clause the clause
+     * @param features the feature vector of the clause
+     * @param bindings the substitution map used for matching
+     * @param ignoredClauses the indexed clauses to ignore
+     * @return a subsuming clause, or null if there is none
+     */
+    public Clause findSubsuming(Clause clause, int[] features, SubstitutionMap bindings, Set<Clause> ignoredClauses){
+        return findSubsuming(root, 0, clause, features, bindings, ignoredClauses);
+    }
+    
+    /**
+     * Method to find the indexed clauses subsumed by the given clause (other than the clause itself)
+     * @param clause the clause
+     * @param features the feature vector of the clause
+     * @param bindings the substitution map used for matching
+     * @return the list of subsumed clauses
+     */
+    public ArrayList<Clause> findSubsumed(Clause clause, int[] features, SubstitutionMap bindings){
+        return findSubsumed(clause, features, bindings, Collections.<Clause>emptySet());
+    }
+    
+    /**
+     * Method to find the indexed clauses subsumed by the given clause (other than the clause itself),
+     * ignoring some of the indexed clauses
+     * @param clause the clause
+     * @param features the feature vector of the clause
+     * @param bindings the substitution map used for matching
+     * @param ignoredClauses the indexed clauses to ignore
+     * @return the list of subsumed clauses
+     */
+    public ArrayList<Clause> findSubsumed(Clause clause, int[] features, SubstitutionMap bindings, Set<Clause> ignoredClauses){
+        ArrayList<Clause> subsumedClauses = new ArrayList<>();
+        findSubsumed(root, 0, clause, features, bindings, ignoredClauses, subsumedClauses);
+        return subsumedClauses;
+    }
+    
+    /**
+     * Method to copy the index (the clauses themselves are shared)
+     * @return the copy
+     */
+    public FeatureVectorIndex copy(){
+        FeatureVectorIndex copy = new FeatureVectorIndex();
+        copy.root = copy(root);
+        copy.size = size;
+        return copy;
+    }
+    
+    /**
+     * Method to copy a node of the trie and the nodes below it
+     */
+    private static Node copy(Node node){
+        Node copy = new Node();
+        copy.clauses.addAll(node.clauses);
+        for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+            copy.children.put(child.getKey(), copy(child.getValue()));
+        }
+        return copy;
+    }
+    
+    /**
+     * Method to remove an indexed clause
+     * @param clause the clause
+     * @param features the feature vector of the clause
+     */
+    public void remove(Clause clause, int[] features){
+        Node node = root;
+        for (int level = 0; level < NUM_FEATURES && node != null; level++) {
+            node = node.children.get(features[level]);
+        }
+        if(node == null){
+            return;
+        }
+        for (int i = 0; i < node.clauses.size(); i++) {
+            if(node.clauses.get(i) == clause){
+                node.clauses.remove(i);
+                size--;
+                return;
+            }
+        }
+    }
+    
+    private void findSubsumed(Node node, int level, Clause clause, int[] features, SubstitutionMap bindings, Set<Clause> ignoredClauses,
+            ArrayList<Clause> subsumedClauses){
+        if(level == NUM_FEATURES){
+            for (Clause indexedClause : node.clauses) {
+                if(indexedClause != clause && !ignoredClauses.contains(indexedClause) && Subsumption.subsumes(clause, indexedClause, bindings)){
+                    subsumedClauses.add(indexedClause);
+                }
+            }
+            return;
+        }
+        //Only clauses with no smaller feature value may be subsumed by the clause
+        for (Node child : node.children.tailMap(features[level], true).values()) {
+            findSubsumed(child, level + 1, clause, features, bindings, ignoredClauses, subsumedClauses);
+        }
+    }
+    
+    private Clause findSubsuming(Node node, int level, Clause clause, int[] features, SubstitutionMap bindings, Set<Clause> ignoredClauses){
+        if(level == NUM_FEATURES){
+            for (Clause indexedClause : node.clauses) {
+                if(!ignoredClauses.contains(indexedClause) && Subsumption.subsumes(indexedClause, clause, bindings)){
+                    return indexedClause;
+                }
+            }
+            return null;
+        }
+        //Only clauses with no greater feature value may subsume the clause
+        for (Node child : node.children.headMap(features[level], true).values()) {
+            Clause subsumingClause = findSubsuming(child, level + 1, clause, features, bindings, ignoredClauses);
+            if(subsumingClause != null){
+                return subsumingClause;
+            }
+        }
+        return null;
+    }
+}
+
+/********************************************************************************
+ * The ClauseSimplifier class post-processes new clauses before they reach the
+ * knowledge base: it detects tautologies, computes the factors of a clause and
+ * condenses a clause into the smallest of its factors that still subsumes it
+ ********************************************************************************/
+class ClauseSimplifier{
+    
+    private static final LiteralComparator LITERAL_ORDER = new LiteralComparator();
+    
+    /**
+     * Method to check whether a clause holds a literal and its complement (e.g. P(x) | ~P(x))
+     * @param clause the clause
+     * @return true iff the clause is a tautology
+     */
+    public static boolean isTautology(Clause clause){
+        for (Literal positiveLiteral : clause.getPositiveTerms()) {
+            for (Literal negativeLiteral : clause.getNegativeTerms()) {
+                if(positiveLiteral.getLiteral().equals(negativeLiteral.getLiteral())){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Method to compute the binary factors of a clause: for each pair of unifiable literals
+     * with the same sign, the clause with the unifier applied (and the pair merged)
+     * @param clause the clause
+     * @param bindings the (reusable) substitution map used for unification, left as it was found
+     * @return the list of factors
+     */
+    public static ArrayList<Clause> factors(Clause clause, SubstitutionMap bindings){
+        ArrayList<Clause> factorList = new ArrayList<>();
+        addFactors(clause, clause.getPositiveTerms(), bindings, factorList);
+        addFactors(clause, clause.getNegativeTerms(), bindings, factorList);
+        return factorList;
+    }
+    
+    /**
+     * Method to add the factors obtained from pairs of literals of the same sign
+     */
+    private static void addFactors(Clause clause, ArrayList<Literal> sameSignLiterals, SubstitutionMap bindings, ArrayList<Clause> factorList){
+        for (int i = 0; i < sameSignLiterals.size() - 1; i++) {
+            Term firstTerm = sameSignLiterals.get(i).getLiteral();
+            for (int j = i + 1; j < sameSignLiterals.size(); j++) {
+                Term secondTerm = sameSignLiterals.get(j).getLiteral();
+                if(firstTerm.getSymbolId() != secondTerm.getSymbolId()){
+                    continue;
+                }
+                int mark = bindings.mark();
+                if(firstTerm.unify(0, secondTerm, 0, bindings) != null){
+                    factorList.add(instantiate(clause, bindings));
+                }
+                bindings.undoTo(mark);
+            }
+        }
+    }
+    
+    /**
+     * Method to condense a clause: while one of its (smaller) factors subsumes it, replace
+     * the clause with that factor
+     * @param clause the clause
+     * @param bindings the (reusable) substitution map used for unification and matching
+     * @return the condensed clause (the clause itself if it cannot be condensed)
+     */
+    public static Clause condense(Clause clause, SubstitutionMap bindings){
+        boolean condensed = true;
+        while(condensed){
+            condensed = false;
+            for (Clause factor : factors(clause, bindings)) {
+                if(factor.getClauseSize() < clause.getClauseSize() && Subsumption.subsumes(factor, clause, bindings)){
+                    clause = factor;
+                    condensed = true;
+                    break;
+                }
+            }
+        }
+        return clause;
+    }
+    
+    /**
+     * Method to apply a substitution to all literals of a clause (used at offset 0), renumbering
+     * the variables left unbound (the renaming bindings are undone before returning)
+     * @param clause the clause
+     * @param subsMap the substitution
+     * @return the new clause
+     */
+    private static Clause instantiate(Clause clause, SubstitutionMap subsMap){
+        int mark = subsMap.mark();
+        subsMap.startRenaming();
+        ArrayList<Literal> literalList = new ArrayList<>();
+        for (Literal literal : clause.getLiterals()) {
+            literalList.add(literal.replaceVarBindings(0, subsMap));
+        }
+        subsMap.undoTo(mark);
+        Collections.sort(literalList, LITERAL_ORDER);
+        return new Clause(new LinkedHashSet<>(literalList));
+    }
+}
+
+/********************************************************************************
+ * The StopReason enum tells why a search gave up before deciding a query (so
+ * the query is answered UNKNOWN rather than FALSE). The limits on counts (of
+ * clauses, or of the heap estimated from them) are deterministic: the same
+ * search on the same KB gives up at the same point. Time limits and
+ * cancellations depend on the load of the machine and on the caller; FAILED
+ * marks a query that could not be searched at all (e.g. a malformed query)
+ ********************************************************************************/
+enum StopReason{
+    WALL_TIME(false),
+    CPU_TIME(false),
+    GENERATED_CLAUSES(true),
+    RETAINED_CLAUSES(true),
+    HEAP(true),
+    CANCELLED(false),
+    FAILED(false);
+    
+    private boolean deterministic;
+    
+    /**
+     * StopReason constructor
+     * @param deterministic true iff the same search always gives up for this reason
+     */
+    StopReason(boolean deterministic){
+        this.deterministic = deterministic;
+    }
+    
+    /**
+     * Method to check whether the same search on the same KB always gives up for this reason
+     * @return true iff the reason does not depend on timing or on the caller
+     */
+    public boolean isDeterministic(){
+        return deterministic;
+    }
+}
+
+/********************************************************************************
+ * The CancellationToken class lets a caller stop a running search from another
+ * thread: the prover polls it between resolutions and gives up (answering
+ * UNKNOWN, see StopReason.CANCELLED) once it is cancelled
+ ********************************************************************************/
+class CancellationToken{
+    
+    private volatile boolean cancelled;
+    
+    /**
+     * Method to ask the searches polling the token to stop
+     */
+    public void cancel(){
+        cancelled = true;
+    }
+    
+    /**
+     * Method to check whether the token was cancelled
+     * @return true iff cancel() was called
+     */
+    public boolean isCancelled(){
+        return cancelled;
+    }
+}
+
+/********************************************************************************
+ * The SearchProgress class lets other threads watch a running search (see
+ * SessionMonitor): the prover publishes its counters here once per round of the
+ * given-clause loop, so a reader sees the state at the start of a recent round
+ ********************************************************************************/
+class SearchProgress{
+    
+    private volatile long roundCount;
+    private volatile int retainedCount;
+    private volatile long generatedCount;
+    
+    /**
+     * Method to publish the counters of the search at the start of a round
+     * @param roundCount the number of rounds (given clauses) done
+     * @param retainedCount the number of clauses kept (active or passive)
+     * @param generatedCount the number of resolvents generated
+     */
+    void update(long roundCount, int retainedCount, long generatedCount){
+        this.roundCount = roundCount;
+        this.retainedCount = retainedCount;
+        this.generatedCount = generatedCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of rounds (given clauses) done
+     * @return the number of rounds done
+     */
+    public long getRoundCount(){
+        return roundCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of clauses kept (active or passive)
+     * @return the number of clauses kept
+     */
+    public int getRetainedCount(){
+        return retainedCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of resolvents generated
+     * @return the number of resolvents generated
+     */
+    public long getGeneratedCount(){
+        return generatedCount;
+    }
+}
+
+/********************************************************************************
+ * The QueryBudget class holds the resource limits of a search: wall time, CPU
+ * time (of the thread running the search), number of clauses generated and kept,
+ * and the heap held by the clauses the search keeps (estimated from their number
+ * and size, see GivenClauseProver.estimateBytes(), so that concurrent queries and
+ * uncollected garbage do not count). A limit of 0 means unlimited (except for the
+ * wall time, which is always enforced)
+ ********************************************************************************/
+class QueryBudget{
+    
+    private long wallTimeMillis;
+    private long cpuTimeMillis;
+    private long maxGeneratedClauses;
+    private int maxRetainedClauses;
+    private long maxHeapBytes;
+    
+    /**
+     * QueryBudget constructor (only the wall time is limited)
+     * @param wallTimeMillis the wall time limit, in milliseconds
+     */
+    public QueryBudget(long wallTimeMillis){
+        this.wallTimeMillis = wallTimeMillis;
+    }
+    
+    /**
+     * QueryBudget constructor
+     * @param wallTimeMillis the wall time limit, in milliseconds
+     * @param cpuTimeMillis the CPU time limit, in milliseconds (0 for none)
+     * @param maxGeneratedClauses the maximum number of resolvents generated (0 for none)
+     * @param maxRetainedClauses the maximum number of clauses kept (0 for none)
+     * @param maxHeapBytes the maximum heap held by the clauses the search keeps, in bytes (0 for none)
+     */
+    public QueryBudget(long wallTimeMillis, long cpuTimeMillis, long maxGeneratedClauses, int maxRetainedClauses, long maxHeapBytes){
+        this.wallTimeMillis = wallTimeMillis;
+        this.cpuTimeMillis = cpuTimeMillis;
+        this.maxGeneratedClauses = maxGeneratedClauses;
+        this.maxRetainedClauses = maxRetainedClauses;
+        this.maxHeapBytes = maxHeapBytes;
+    }
+    
+    /**
+     * Getter method to retrieve the wall time limit
+     * @return the wall time limit, in milliseconds
+     */
+    public long getWallTimeMillis(){
+        return wallTimeMillis;
+    }
+    
+    /**
+     * Getter method to retrieve the CPU time limit
+     * @return the CPU time limit, in milliseconds (0 for none)
+     */
+    public long getCpuTimeMillis(){
+        return cpuTimeMillis;
+    }
+    
+    /**
+     * Getter method to retrieve the maximum number of resolvents generated
+     * @return the maximum number of resolvents generated (0 for none)
+     */
+    public long getMaxGeneratedClauses(){
+        return maxGeneratedClauses;
+    }
+    
+    /**
+     * Getter method to retrieve the maximum number of clauses kept
+     * @return the maximum number of clauses kept (0 for none)
+     */
+    public int getMaxRetainedClauses(){
+        return maxRetainedClauses;
+    }
+    
+    /**
+     * Getter method to retrieve the maximum heap held by the clauses the search keeps
+     * @return the maximum heap held by the kept clauses, in bytes (0 for none)
+     */
+    public long getMaxHeapBytes(){
+        return maxHeapBytes;
+    }
+}
+
+/********************************************************************************
+ * The ProverStatistics class holds the counters of one search, cheap enough to
+ * keep on for every query: plain fields bumped by the (single) thread running
+ * the search, three clock reads per round of the given-clause loop (none per
+ * resolvent) and one int per round for the size of the clause set
+ *   given clauses, literal pairs tried (unify attempts), active literals of the
+ *   right predicate and sign rejected by the term index, resolvents generated
+ *   (successful unifications), and what became of them (duplicates, forward
+ *   subsumed, tautologies, condensed, factors), the kept clauses removed by
+ *   backward subsumption, the number of kept clauses at the start of each round,
+ *   the final size of the clause sets, and the time spent selecting given
+ *   clauses, backward subsuming, and resolving (simplifying the resolvents
+ *   included, as the two are interleaved)
+ ********************************************************************************/
+class ProverStatistics{
+    
+    private long givenClauseCount;
+    private long pairCount;
+    private long indexRejectedCount;
+    private long generatedCount;
+    private long duplicateCount;
+    private long forwardSubsumedCount;
+    private long backwardSubsumedCount;
+    private long tautologyCount;
+    private long condensedCount;
+    private long factorCount;
+    private int activeCount;
+    private int passiveCount;
+    private int peakRetainedCount;
+    //Number of kept clauses at the start of each round (the first roundCount entries)
+    private int[] retainedPerRound = new int[64];
+    private int roundCount;
+    private long selectNanos;
+    private long resolveNanos;
+    private long backwardNanos;
+    
+    /**
+     * Method to count a given clause
+     */
+    void addGivenClause(){
+        givenClauseCount++;
+    }
+    
+    /**
+     * Method to count literal pairs tried
+     * @param count the number of pairs
+     */
+    void addPairs(long count){
+        pairCount += count;
+    }
+    
+    /**
+     * Method to count complementary literals ruled out by the term index
+     * @param count the number of literals
+     */
+    void addIndexRejected(long count){
+        indexRejectedCount += count;
+    }
+    
+    /**
+     * Method to count resolvents generated
+     * @param count the number of resolvents
+     */
+    void addGenerated(long count){
+        generatedCount += count;
+    }
+    
+    /**
+     * Method to count a new clause dropped as a variant of a kept clause
+     */
+    void addDuplicate(){
+        duplicateCount++;
+    }
+    
+    /**
+     * Method to count a new clause discarded by forward subsumption
+     */
+    void addForwardSubsumed(){
+        forwardSubsumedCount++;
+    }
+    
+    /**
+     * Method to count a kept clause removed by backward subsumption
+     */
+    void addBackwardSubsumed(){
+        backwardSubsumedCount++;
+    }
+    
+    /**
+     * Method to count a new clause deleted as a tautology
+     */
+    void addTautology(){
+        tautologyCount++;
+    }
+    
+    /**
+     * Method to count a new clause replaced by a condensed clause
+     */
+    void addCondensed(){
+        condensedCount++;
+    }
+    
+    /**
+     * Method to count a factor added to the passive set
+     */
+    void addFactor(){
+        factorCount++;
+    }
+    
+    /**
+     * Method to add time spent selecting given clauses
+     * @param nanos the time, in nanoseconds
+     */
+    void addSelectNanos(long nanos){
+        selectNanos += nanos;
+    }
+    
+    /**
+     * Method to add time spent resolving given clauses and simplifying their resolvents
+     * @param nanos the time, in nanoseconds
+     */
+    void addResolveNanos(long nanos){
+        resolveNanos += nanos;
+    }
+    
+    /**
+     * Method to add time spent on backward subsumption
+     * @param nanos the time, in nanoseconds
+     */
+    void addBackwardNanos(long nanos){
+        backwardNanos += nanos;
+    }
+    
+    /**
+     * Method to record the size of the kept clause set at the start of a round (and its peak)
+     * @param retainedCount the number of kept clauses
+     */
+    void recordRetained(int retainedCount){
+        peakRetainedCount = Math.max(peakRetainedCount, retainedCount);
+        if(roundCount == retainedPerRound.length){
+            retainedPerRound = Arrays.copyOf(retainedPerRound, roundCount * 2);
+        }
+        retainedPerRound[roundCount++] = retainedCount;
+    }
+    
+    /**
+     * Method to record the size of the clause sets when the search ends
+     * @param activeCount the number of active clauses
+     * @param passiveCount the number of passive clauses
+     */
+    void recordFinalSizes(int activeCount, int passiveCount){
+        this.activeCount = activeCount;
+        this.passiveCount = passiveCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of given clauses (rounds of the saturation loop)
+     * @return the number of given clauses (rounds of the saturation loop)
+     */
+    public long getGivenClauseCount(){
+        return givenClauseCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of (given literal, partner literal) pairs tried, i.e. of unify attempts
+     * @return the number of (given literal, partner literal) pairs tried, i.e. of unify attempts
+     */
+    public long getPairCount(){
+        return pairCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of complementary active literals the term index ruled out without unifying
+     * @return the number of complementary active literals the term index ruled out without unifying
+     */
+    public long getIndexRejectedCount(){
+        return indexRejectedCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of resolvents generated (successful unifications)
+     * @return the number of resolvents generated (successful unifications)
+     */
+    public long getGeneratedCount(){
+        return generatedCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of new clauses dropped as variants of kept clauses
+     * @return the number of new clauses dropped as variants of kept clauses
+     */
+    public long getDuplicateCount(){
+        return duplicateCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of new clauses discarded by forward subsumption
+     * @return the number of new clauses discarded by forward subsumption
+     */
+    public long getForwardSubsumedCount(){
+        return forwardSubsumedCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of kept clauses removed by backward subsumption
+     * @return the number of kept clauses removed by backward subsumption
+     */
+    public long getBackwardSubsumedCount(){
+        return backwardSubsumedCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of new clauses deleted as tautologies
+     * @return the number of new clauses deleted as tautologies
+     */
+    public long getTautologyCount(){
+        return tautologyCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of new clauses replaced by a condensed clause
+     * @return the number of new clauses replaced by a condensed clause
+     */
+    public long getCondensedCount(){
+        return condensedCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of factors added to the passive set
+     * @return the number of factors added to the passive set
+     */
+    public long getFactorCount(){
+        return factorCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of active clauses when the search ended
+     * @return the number of active clauses when the search ended
+     */
+    public int getActiveCount(){
+        return activeCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of passive clauses when the search ended
+     * @return the number of passive clauses when the search ended
+     */
+    public int getPassiveCount(){
+        return passiveCount;
+    }
+    
+    /**
+     * Getter method to retrieve the largest number of clauses kept at the start of a round
+     * @return the largest number of clauses kept at the start of a round
+     */
+    public int getPeakRetainedCount(){
+        return peakRetainedCount;
+    }
+    
+    /**
+     * Getter method to retrieve the time spent selecting given clauses, in nanoseconds
+     * @return the time spent selecting given clauses, in nanoseconds
+     */
+    public long getSelectNanos(){
+        return selectNanos;
+    }
+    
+    /**
+     * Getter method to retrieve the time spent resolving (retrieving partners, unifying, building resolvents,
+     * simplifying them into the passive set), in nanoseconds
+     * @return the time spent resolving, in nanoseconds
+     */
+    public long getResolveNanos(){
+        return resolveNanos;
+    }
+    
+    /**
+     * Getter method to retrieve the number of kept clauses (active or passive) at the start of each round
+     * @return a copy of the series, one entry per round
+     */
+    public int[] getRetainedPerRound(){
+        return Arrays.copyOf(retainedPerRound, roundCount);
+    }
+    
+    /**
+     * Getter method to retrieve the time spent removing kept clauses subsumed by given clauses, in nanoseconds
+     * @return the time spent removing kept clauses subsumed by given clauses, in nanoseconds
+     */
+    public long getBackwardNanos(){
+        return backwardNanos;
+    }
+    
+    /**
+     * Method to summarize the statistics on one line
+     * @return the summary line
+     */
+    public String toSummaryLine(){
+        return String.format("given=%d pairs=%d indexRejected=%d resolvents=%d duplicates=%d forwardSubsumed=%d backwardSubsumed=%d "
+                + "tautologies=%d condensed=%d factors=%d active=%d passive=%d peakKept=%d selectMs=%.1f resolveMs=%.1f "
+                + "backwardMs=%.1f", givenClauseCount, pairCount, indexRejectedCount, generatedCount, duplicateCount, forwardSubsumedCount,
+                backwardSubsumedCount, tautologyCount, condensedCount, factorCount, activeCount, passiveCount, peakRetainedCount,
+                selectNanos / 1e6, resolveNanos / 1e6, backwardNanos / 1e6);
+    }
+    
+    @Override
+    public String toString(){
+        return toSummaryLine();
+    }
+}
+
+/********************************************************************************
+ * The QueryEvent class is the Java Flight Recorder event of one query asked to a
+ * ProverSession: it begins when the query is asked and is committed with the
+ * answer, so slow queries can be lined up with the GC and CPU events of the same
+ * recording (e.g. jcmd <pid> JFR.start settings=profile, or
+ * -XX:StartFlightRecording; filter slow queries with homework.Query#threshold)
+ ********************************************************************************/
+@Name("homework.Query")
+@Label("Query")
+@Category({"Prover"})
+@Description("A query asked to a prover session, from the question to the answer")
+class QueryEvent extends Event{
+    
+    @Label("Query")
+    String query;
+    
+    @Label("KB Clauses")
+    @Description("Number of (reduced) clauses of the knowledge base searched")
+    int kbSize;
+    
+    @Label("KB Version")
+    long kbVersion;
+    
+    @Label("Answer")
+    @Description("TRUE, FALSE or UNKNOWN")
+    String answer;
+    
+    @Label("Stop Reason")
+    @Description("Why the search gave up, for an UNKNOWN answer")
+    String stopReason;
+    
+    @Label("Cached")
+    boolean cached;
+    
+    @Label("Given Clauses")
+    long givenClauses;
+    
+    @Label("Resolvents Generated")
+    long generated;
+    
+    @Label("Peak Kept Clauses")
+    int peakRetained;
+}
+
+/********************************************************************************
+ * The SaturationRoundEvent class is the Java Flight Recorder event of one round
+ * of the given-clause loop (see GivenClauseProver.saturate()): selecting the
+ * given clause, removing the clauses it subsumes and resolving it against the
+ * active set (see ResolventBatchEvent). A search runs thousands of rounds, so
+ * only those over the threshold (1 ms unless the recording sets another) are kept
+ ********************************************************************************/
+@Name("homework.SaturationRound")
+@Label("Saturation Round")
+@Category({"Prover"})
+@Description("One given clause of the saturation loop")
+@Threshold("1 ms")
+@StackTrace(false)
+class SaturationRoundEvent extends Event{
+    
+    @Label("Round")
+    long round;
+    
+    @Label("Given Clause Size")
+    int givenClauseSize;
+    
+    @Label("KB Clauses")
+    @Description("Number of clauses the search started from")
+    int kbSize;
+    
+    @Label("Backward Subsumed")
+    @Description("Kept clauses removed because the given clause subsumes them")
+    long backwardSubsumed;
+    
+    @Label("Active Clauses")
+    int activeCount;
+    
+    @Label("Passive Clauses")
+    int passiveCount;
+    
+    @Label("Kept Clauses")
+    int retainedCount;
+    
+    @Label("Resolvents Generated")
+    @Description("Resolvents generated by the search so far")
+    long generated;
+}
+
+/********************************************************************************
+ * The ResolventBatchEvent class is the Java Flight Recorder event of the batch of
+ * resolvents of one given clause: resolving it against its active partners (on
+ * the pool, see ResolutionTask, or sequentially) and simplifying the resolvents
+ * into the passive set. Like rounds, only the batches over the threshold are kept
+ ********************************************************************************/
+@Name("homework.ResolventBatch")
+@Label("Resolvent Batch")
+@Category({"Prover"})
+@Description("The resolvents of one given clause against the active set")
+@Threshold("1 ms")
+@StackTrace(false)
+class ResolventBatchEvent extends Event{
+    
+    @Label("Parallel")
+    boolean parallel;
+    
+    @Label("Pairs")
+    @Description("Complementary literal pairs tried")
+    long pairs;
+    
+    @Label("Resolvents")
+    @Description("Resolvents generated by the batch")
+    long resolvents;
+    
+    @Label("Kept")
+    @Description("Resolvents (and factors) of the batch kept in the passive set")
+    int kept;
+    
+    @Label("KB Clauses")
+    @Description("Number of clauses the search started from")
+    int kbSize;
+    
+    @Label("Resolvents Generated")
+    @Description("Resolvents generated by the search so far")
+    long generated;
+    
+    @Label("Kept Clauses")
+    int retainedCount;
+}
+
+/********************************************************************************
+ * The GivenClauseProver class runs the given-clause saturation loop for a single
+ * query. Clauses wait in the passive set until selected (smallest first, in order
+ * of arrival); the selected "given" clause is resolved against the active set
+ * only and then becomes active, so every pair of clauses is resolved exactly once
+ * With a ForkJoinPool, the resolutions of each given clause are run in parallel
+ * (see ResolutionTask); the resolvents are then added in the sequential order
+ * The search gives up (see getStopReason()) when it exceeds its QueryBudget or
+ * its CancellationToken is cancelled (the CPU time counts the pool's workers as
+ * well as the thread running the search); the counters are checked after every
+ * resolution, the clocks only every CLOCK_CHECK_INTERVAL resolutions
+ ********************************************************************************/
+class GivenClauseProver{
+    
+    //Number of resolutions between two reads of the clocks
+    static final int CLOCK_CHECK_INTERVAL = 64;
+    //Heap held by a kept clause and by each of its literals, with the set, index and bucket entries
+    //pointing to them (measured on a 64-bit JVM with compressed references)
+    static final int CLAUSE_BYTES = 560;
+    static final int LITERAL_BYTES = 100;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    
+    private QueryBudget budget;
+    private CancellationToken cancellationToken;
+    //Why the search gave up (null while it runs, or if it decided the query)
+    private StopReason stopReason;
+    private long startMillis;
+    private long startCpuNanos;
+    //CPU time spent by the pool's workers on the resolutions of this search (null if the CPU time is not limited)
+    private AtomicLong workerCpuNanos;
+    private int clockCountdown;
+    //Pool running the resolutions of each given clause (null to resolve sequentially)
+    private ForkJoinPool resolutionPool;
+    //Passive clauses, bucketed by clause size (FIFO within each bucket)
+    private ArrayList<ArrayDeque<Clause>> passiveBuckets = new ArrayList<>();
+    private int passiveCount;
+    //Active clauses, already resolved against each other, indexed by predicate and sign
+    private HashSet<Clause> activeSet = new HashSet<>();
+    private PredicateIndex activeIndex = new PredicateIndex();
+    //Passive clauses removed by backward subsumption, skipped when selected
+    private Set<Clause> retiredClauses = Collections.newSetFromMap(new IdentityHashMap<Clause, Boolean>());
+    //Every clause the search kept so far (active or passive) on top of the base clauses, used to drop duplicate resolvents
+    private HashSet<Clause> retainedClauses = new HashSet<>();
+    //Estimated heap held by the kept clauses the search added (the KB clauses are shared)
+    private long retainedBytes;
+    //The clauses in retainedClauses indexed by feature vector, used to drop subsumed resolvents
+    private FeatureVectorIndex subsumptionIndex = new FeatureVectorIndex();
+    //The reduced clauses of the KB, shared with the other searches and never changed: the search only
+    //records which of them it dropped (variants of a clause of the negated query, or backward subsumed)
+    private ReducedClauseSet baseClauses = ReducedClauseSet.EMPTY;
+    private HashSet<Clause> droppedBaseClauses = new HashSet<>();
+    //Per clause size, the number of passive clauses (of the negated query) selected before the base clauses,
+    //and the number of base clauses already selected or skipped
+    private int[] headCounts = new int[0];
+    private int[] baseCursors = new int[0];
+    //Scratch buffers reused by every resolve() call of the search
+    private ResolutionWorkspace workspace = new ResolutionWorkspace();
+    //The clauses given to the search (rather than derived), and the kept clauses derived from the negated query
+    private Set<Clause> inputClauses = Collections.newSetFromMap(new IdentityHashMap<Clause, Boolean>());
+    private Set<Clause> queryDependentClauses = Collections.newSetFromMap(new IdentityHashMap<Clause, Boolean>());
+    //True iff the search separates the negated query from the KB (see getLemmaCandidates())
+    private boolean trackingLemmas;
+    private ProverStatistics statistics = new ProverStatistics();
+    //Counters published once per round for other threads (see SearchProgress)
+    private SearchProgress progress = new SearchProgress();
+    //Number of clauses the search started from (reported by the JFR events)
+    private int kbSize;
+    
+    /**
+     * GivenClauseProver constructor
+     * @param timeLimit the time limit of the search, in milliseconds
+     */
+    public GivenClauseProver(long timeLimit){
+        this(timeLimit, null);
+    }
+    
+    /**
+     * GivenClauseProver constructor
+     * @param timeLimit the time limit of the search, in milliseconds
+     * @param resolutionPool the pool to resolve on in parallel (null to resolve sequentially)
+     */
+    public GivenClauseProver(long timeLimit, ForkJoinPool resolutionPool){
+        this(new QueryBudget(timeLimit), resolutionPool, new CancellationToken());
+    }
+    
+    /**
+     * GivenClauseProver constructor
+     * @param budget the resource limits of the search
+     * @param resolutionPool the pool to resolve on in parallel (null to resolve sequentially)
+     * @param cancellationToken the token to stop the search with
+     */
+    public GivenClauseProver(QueryBudget budget, ForkJoinPool resolutionPool, CancellationToken cancellationToken){
+        this.budget = budget;
+        this.resolutionPool = resolutionPool;
+        this.cancellationToken = cancellationToken;
+    }
+    
+    /**
+     * Method to run the saturation loop on a knowledge base
+     * @param knowledgeBase the (KB^~alpha) knowledge base
+     * @return true iff the empty clause is derived (KB |= alpha)
+     */
+    public boolean prove(LinkedHashSet<Clause> knowledgeBase){
+        //Track time to kill infinite loops
+        startBudget();
+        kbSize = knowledgeBase.size();
+        for (Clause clause : knowledgeBase) {
+            if(clause.isEmpty()){
+                return true;
+            }
+            addPassive(clause, false);
+        }
+        return saturate();
+    }
+    
+    /**
+     * Method to run the saturation loop on a negated query and an already simplified knowledge base
+     * (see KnowledgeBase.getReducedClauseSet()), whose clauses are taken in without simplifying them again
+     * @param negatedQuery the negated query (~alpha)
+     * @param reducedClauses the clauses of the KB, free of tautologies and of clauses subsumed by each other
+     * @return true iff the empty clause is derived (KB |= alpha)
+     */
+    public boolean prove(Clause negatedQuery, ReducedClauseSet reducedClauses){
+        return prove(negatedQuery, reducedClauses, Collections.<Clause>emptyList());
+    }
+    
+    /**
+     * Method to run the saturation loop on a negated query, an already simplified knowledge base and
+     * lemmas derived from the KB by earlier searches (see LemmaStore). The derived clauses that do not
+     * depend on the negated query are tracked, to be offered as lemmas to later searches
+     * The KB clauses are neither copied nor indexed: the search selects them from the (shared) set in
+     * turn, and checks new clauses against both its own index and the set's
+     * @param negatedQuery the negated query (~alpha)
+     * @param reducedClauses the clauses of the KB, free of tautologies and of clauses subsumed by each other
+     * @param lemmas clauses entailed by the KB alone (simplified like any new clause)
+     * @return true iff the empty clause is derived (KB |= alpha)
+     */
+    public boolean prove(Clause negatedQuery, ReducedClauseSet reducedClauses, List<Clause> lemmas){
+        startBudget();
+        trackingLemmas = true;
+        kbSize = reducedClauses.size();
+        if(negatedQuery.isEmpty() || !reducedClauses.getClausesOfSize(0).isEmpty()){
+            return true;
+        }
+        addPassive(negatedQuery, true);
+        baseClauses = reducedClauses;
+        //The clauses are already reduced against each other: only a variant of a clause of the query is dropped
+        for (Clause clause : retainedClauses) {
+            if(baseClauses.contains(clause)){
+                droppedBaseClauses.add(clause);
+            }
+        }
+        passiveCount += baseClauses.size() - droppedBaseClauses.size();
+        while(passiveBuckets.size() < baseClauses.getSizeCount()){
+            passiveBuckets.add(new ArrayDeque<Clause>());
+        }
+        //The clauses of the query come first within their size, as they were passive before the KB's
+        headCounts = new int[passiveBuckets.size()];
+        baseCursors = new int[passiveBuckets.size()];
+        for (int size = 0; size < headCounts.length; size++) {
+            headCounts[size] = passiveBuckets.get(size).size();
+        }
+        for (Clause lemma : lemmas) {
+            if(lemma.isEmpty()){
+                return true;
+            }
+            inputClauses.add(lemma);
+            addPassive(lemma, false);
+        }
+        return saturate();
+    }
+    
+    /**
+     * Method to collect, after a search run with lemmas tracked, the kept derived clauses that do not
+     * depend on the negated query (so are entailed by the KB alone), smallest first
+     * @param maxSize the largest clause size to collect
+     * @param limit the maximum number of clauses to collect
+     * @return the lemma candidates
+     */
+    public List<Clause> getLemmaCandidates(int maxSize, int limit){
+        ArrayList<Clause> candidates = new ArrayList<>();
+        if(!trackingLemmas){
+            return candidates;
+        }
+        //The base clauses are not in retainedClauses
+        for (Clause clause : retainedClauses) {
+            if(clause.getClauseSize() <= maxSize && !clause.isEmpty() && !inputClauses.contains(clause)
+                    && !queryDependentClauses.contains(clause)){
+                candidates.add(clause);
+            }
+        }
+        Collections.sort(candidates);
+        return candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+    }
+    
+    /**
+     * Method to start the clocks of the budget
+     */
+    private void startBudget(){
+        startMillis = System.currentTimeMillis();
+        startCpuNanos = budget.getCpuTimeMillis() > 0 ? THREADS.getCurrentThreadCpuTime() : 0;
+        workerCpuNanos = budget.getCpuTimeMillis() > 0 ? new AtomicLong() : null;
+        clockCountdown = CLOCK_CHECK_INTERVAL;
+    }
+    
+    /**
+     * Method to check the budget of the search, recording why it is exhausted; the clocks are
+     * only read once every CLOCK_CHECK_INTERVAL calls
+     * @return true iff the search must give up
+     */
+    private boolean isBudgetExhausted(){
+        if(stopReason != null){
+            return true;
+        }
+        if(cancellationToken.isCancelled()){
+            stopReason = StopReason.CANCELLED;
+        }
+        else if(budget.getMaxGeneratedClauses() > 0 && statistics.getGeneratedCount() > budget.getMaxGeneratedClauses()){
+            stopReason = StopReason.GENERATED_CLAUSES;
+        }
+        else if(budget.getMaxRetainedClauses() > 0 && getRetainedCount() > budget.getMaxRetainedClauses()){
+            stopReason = StopReason.RETAINED_CLAUSES;
+        }
+        else if(budget.getMaxHeapBytes() > 0 && retainedBytes > budget.getMaxHeapBytes()){
+            stopReason = StopReason.HEAP;
+        }
+        else if(--clockCountdown <= 0){
+            clockCountdown = CLOCK_CHECK_INTERVAL;
+            if(System.currentTimeMillis() - startMillis > budget.getWallTimeMillis()){
+                stopReason = StopReason.WALL_TIME;
+            }
+            else if(budget.getCpuTimeMillis() > 0 && THREADS.getCurrentThreadCpuTime() - startCpuNanos + workerCpuNanos.get()
+                    > budget.getCpuTimeMillis() * 1000000L){
+                stopReason = StopReason.CPU_TIME;
+            }
+        }
+        return stopReason != null;
+    }
+    
+    /**
+     * Method to run the given-clause loop until the empty clause is derived, the passive set is
+     * exhausted, or the budget is exhausted
+     * @return true iff the empty clause is derived
+     */
+    private boolean saturate(){
+        //Each round reads the clock three times: the end of a round is the start of the next one
+        long roundStart = System.nanoTime();
+        try {
+            while(passiveCount > 0){
+                if(isBudgetExhausted()){
+                    return false;
+                }
+                statistics.recordRetained(getRetainedCount());
+                progress.update(statistics.getGivenClauseCount(), getRetainedCount(), statistics.getGeneratedCount());
+                SaturationRoundEvent roundEvent = new SaturationRoundEvent();
+                roundEvent.begin();
+                Clause givenClause = selectGivenClause();
+                long selectEnd = System.nanoTime();
+                long backwardSubsumedBefore = statistics.getBackwardSubsumedCount();
+                removeSubsumedBy(givenClause);
+                long resolveStart = System.nanoTime();
+                statistics.addGivenClause();
+                statistics.addSelectNanos(selectEnd - roundStart);
+                statistics.addBackwardNanos(resolveStart - selectEnd);
+                ResolventBatchEvent batchEvent = new ResolventBatchEvent();
+                batchEvent.begin();
+                long pairsBefore = statistics.getPairCount();
+                long generatedBefore = statistics.getGeneratedCount();
+                int retainedBefore = getRetainedCount();
+                boolean refuted = resolveGivenClause(givenClause);
+                roundStart = System.nanoTime();
+                statistics.addResolveNanos(roundStart - resolveStart);
+                commitBatchEvent(batchEvent, pairsBefore, generatedBefore, retainedBefore);
+                commitRoundEvent(roundEvent, givenClause, backwardSubsumedBefore);
+                if(refuted){
+                    return true;
+                }
+                if(stopReason != null){
+                    return false;
+                }
+                activeSet.add(givenClause);
+                activeIndex.add(givenClause);
+            }
+            //The clause set is saturated without deriving the empty clause
+            return false;
+        } finally {
+            statistics.recordFinalSizes(activeSet.size(), passiveCount);
+        }
+    }
+    
+    /**
+     * Method to end the JFR event of a round and commit it if the recording keeps it
+     * @param roundEvent the event, begun before the given clause was selected
+     * @param givenClause the given clause of the round
+     * @param backwardSubsumedBefore the number of clauses removed by backward subsumption before the round
+     */
+    private void commitRoundEvent(SaturationRoundEvent roundEvent, Clause givenClause, long backwardSubsumedBefore){
+        roundEvent.end();
+        if(roundEvent.shouldCommit()){
+            roundEvent.round = statistics.getGivenClauseCount();
+            roundEvent.givenClauseSize = givenClause.getClauseSize();
+            roundEvent.kbSize = kbSize;
+            roundEvent.backwardSubsumed = statistics.getBackwardSubsumedCount() - backwardSubsumedBefore;
+            roundEvent.activeCount = activeSet.size();
+            roundEvent.passiveCount = passiveCount;
+            roundEvent.retainedCount = getRetainedCount();
+            roundEvent.generated = statistics.getGeneratedCount();
+            roundEvent.commit();
+        }
+    }
+    
+    /**
+     * Method to end the JFR event of the resolvents of a given clause and commit it if the recording keeps it
+     * (resolvents are only added to the kept clauses during the batch, so the growth of the set is what it kept)
+     * @param batchEvent the event, begun before the given clause was resolved
+     * @param pairsBefore the number of pairs tried before the batch
+     * @param generatedBefore the number of resolvents generated before the batch
+     * @param retainedBefore the number of kept clauses before the batch
+     */
+    private void commitBatchEvent(ResolventBatchEvent batchEvent, long pairsBefore, long generatedBefore, int retainedBefore){
+        batchEvent.end();
+        if(batchEvent.shouldCommit()){
+            batchEvent.parallel = resolutionPool != null;
+            batchEvent.pairs = statistics.getPairCount() - pairsBefore;
+            batchEvent.resolvents = statistics.getGeneratedCount() - generatedBefore;
+            batchEvent.kept = getRetainedCount() - retainedBefore;
+            batchEvent.kbSize = kbSize;
+            batchEvent.generated = statistics.getGeneratedCount();
+            batchEvent.retainedCount = getRetainedCount();
+            batchEvent.commit();
+        }
+    }
+    
+    /**
+     * Method to resolve the given clause against the active set, adding the resolvents to the passive set
+     * @param givenClause the given clause
+     * @return true iff the empty clause is derived (false as well if the budget is exhausted, see stopReason)
+     */
+    private boolean resolveGivenClause(Clause givenClause){
+        boolean givenDependsOnQuery = queryDependentClauses.contains(givenClause);
+        if(resolutionPool != null){
+            ResolutionTask.Batch resolvents = resolveInParallel(givenClause, startMillis + budget.getWallTimeMillis());
+            statistics.addPairs(resolvents.getPairCount());
+            statistics.addGenerated(resolvents.size());
+            for (int i = 0; i < resolvents.size(); i++) {
+                Clause resolvent = resolvents.getResolvent(i);
+                if(resolvent.isEmpty()){
+                    return true;
+                }
+                addPassive(resolvent, givenDependsOnQuery || queryDependentClauses.contains(resolvents.getPartner(i)));
+            }
+            //A batch holds many resolutions: read the clocks after each one
+            clockCountdown = 1;
+            isBudgetExhausted();
+            return false;
+        }
+        for (Literal givenLiteral : givenClause.getLiterals()) {
+            //Only resolve against active literals that may unify with the complement of the given literal
+            ArrayList<IndexedLiteral> partnerLiterals = activeIndex.getUnifiableComplements(givenLiteral);
+            statistics.addIndexRejected(activeIndex.getComplementCount(givenLiteral) - partnerLiterals.size());
+            for (int i = 0; i < partnerLiterals.size(); i++) {
+                IndexedLiteral partner = partnerLiterals.get(i);
+                /***********************RESOLVE***********************/
+                statistics.addPairs(1);
+                Clause resolvent = homework.resolveLiterals(workspace, givenClause, givenLiteral, partner.getClause(), partner.getLiteral());
+                if(resolvent != null){
+                    statistics.addGenerated(1);
+                    if(resolvent.isEmpty()){
+                        return true;
+                    }
+                    addPassive(resolvent, givenDependsOnQuery || queryDependentClauses.contains(partner.getClause()));
+                }
+                if(isBudgetExhausted()){
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Getter method to retrieve why the search gave up
+     * @return the reason, or null if the search decided the query (or has not run)
+     */
+    public StopReason getStopReason(){
+        return stopReason;
+    }
+    
+    /**
+     * Getter method to retrieve the statistics of the search
+     * @return the statistics
+     */
+    public ProverStatistics getStatistics(){
+        return statistics;
+    }
+    
+    /**
+     * Getter method to retrieve the progress of the search, safe to read from any thread
+     * @return the progress (updated once per round)
+     */
+    public SearchProgress getProgress(){
+        return progress;
+    }
+    
+    /**
+     * Method to resolve the given clause against its active partners, on the pool when there is enough work
+     * @param givenClause the given clause
+     * @param deadline the time (in milliseconds) after which the workers give up
+     * @return the resolvents, in the order the sequential loop generates them (ending with the empty
+     * clause if it was derived)
+     */
+    private ResolutionTask.Batch resolveInParallel(Clause givenClause, long deadline){
+        //Gather every (given literal, partner literal) pair, so that the pairs can be split evenly
+        ArrayList<Literal> givenLiterals = new ArrayList<>();
+        ArrayList<IndexedLiteral> partnerLiterals = new ArrayList<>();
+        for (Literal givenLiteral : givenClause.getLiterals()) {
+            ArrayList<IndexedLiteral> candidates = activeIndex.getUnifiableComplements(givenLiteral);
+            statistics.addIndexRejected(activeIndex.getComplementCount(givenLiteral) - candidates.size());
+            for (IndexedLiteral partner : candidates) {
+                givenLiterals.add(givenLiteral);
+                partnerLiterals.add(partner);
+            }
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        if(partnerLiterals.size() <= ResolutionTask.SEQUENTIAL_THRESHOLD){
+            ResolutionTask.Batch resolvents = new ResolutionTask.Batch();
+            ResolutionTask.resolveRange(workspace, givenClause, givenLiterals, partnerLiterals, 0, partnerLiterals.size(), stop, deadline,
+                    cancellationToken, resolvents);
+            return resolvents;
+        }
+        return resolutionPool.invoke(new ResolutionTask(givenClause, givenLiterals, partnerLiterals, 0, partnerLiterals.size(), stop, deadline,
+                cancellationToken, workerCpuNanos));
+    }
+    
+    /**
+     * Getter method to retrieve the number of clauses kept so far (active or passive), base clauses included
+     * @return the number of kept clauses
+     */
+    private int getRetainedCount(){
+        return retainedClauses.size() + baseClauses.size() - droppedBaseClauses.size();
+    }
+    
+    /**
+     * Method to remove the kept clauses (active or passive) subsumed by a new given clause, so that
+     * they no longer take part in the search
+     * @param givenClause the given clause
+     */
+    private void removeSubsumedBy(Clause givenClause){
+        int[] features = FeatureVectorIndex.features(givenClause);
+        //The base clauses are only marked as dropped, as other searches share them
+        for (Clause subsumedClause : baseClauses.findSubsumed(givenClause, features, workspace.getSubstitutionMap(), droppedBaseClauses)) {
+            droppedBaseClauses.add(subsumedClause);
+            if(activeSet.remove(subsumedClause)){
+                activeIndex.remove(subsumedClause);
+            }
+            else{
+                //Still passive: skipped when its turn comes (see selectGivenClause())
+                passiveCount--;
+            }
+            statistics.addBackwardSubsumed();
+        }
+        ArrayList<Clause> subsumedClauses = subsumptionIndex.findSubsumed(givenClause, features, workspace.getSubstitutionMap());
+        for (Clause subsumedClause : subsumedClauses) {
+            retainedClauses.remove(subsumedClause);
+            if(!inputClauses.contains(subsumedClause)){
+                retainedBytes -= estimateBytes(subsumedClause);
+            }
+            subsumptionIndex.remove(subsumedClause, FeatureVectorIndex.features(subsumedClause));
+            if(activeSet.remove(subsumedClause)){
+                activeIndex.remove(subsumedClause);
+            }
+            else{
+                retiredClauses.add(subsumedClause);
+                passiveCount--;
+            }
+            statistics.addBackwardSubsumed();
+        }
+    }
+    
+    /**
+     * Method to add a clause to the passive set, unless it is a tautology or is subsumed by (or a variant
+     * of) a kept clause. The clause is condensed first, and its factors are added along with it
+     * @param newClause the new clause
+     * @param dependsOnQuery true iff the clause is (derived from) the negated query
+     */
+    private void addPassive(Clause newClause, boolean dependsOnQuery){
+        if(ClauseSimplifier.isTautology(newClause)){
+            statistics.addTautology();
+            return;
+        }
+        Clause clause = ClauseSimplifier.condense(newClause, workspace.getSubstitutionMap());
+        if(clause != newClause){
+            statistics.addCondensed();
+        }
+        if(retainedClauses.contains(clause) || baseClauses.contains(clause) && !droppedBaseClauses.contains(clause)){
+            statistics.addDuplicate();
+            return;
+        }
+        int[] features = FeatureVectorIndex.features(clause);
+        if(subsumptionIndex.findSubsuming(clause, features, workspace.getSubstitutionMap()) != null
+                || baseClauses.findSubsuming(clause, features, workspace.getSubstitutionMap(), droppedBaseClauses) != null){
+            statistics.addForwardSubsumed();
+            return;
+        }
+        retainedClauses.add(clause);
+        if(!inputClauses.contains(clause)){
+            retainedBytes += estimateBytes(clause);
+        }
+        subsumptionIndex.insert(clause, features);
+        if(dependsOnQuery){
+            queryDependentClauses.add(clause);
+        }
+        addToPassiveBuckets(clause);
+        for (Clause factor : ClauseSimplifier.factors(clause, workspace.getSubstitutionMap())) {
+            statistics.addFactor();
+            addPassive(factor, dependsOnQuery);
+        }
+    }
+    
+    /**
+     * Method to estimate the heap a kept clause holds (its literals, terms, canonical encoding and
+     * the entries of the search's sets and indexes), for the heap limit of the budget
+     * @param clause the clause
+     * @return the estimated size, in bytes
+     */
+    static long estimateBytes(Clause clause){
+        return CLAUSE_BYTES + (long) LITERAL_BYTES * clause.getClauseSize();
+    }
+    
+    /**
+     * Method to append a (kept) clause to the bucket of its size in the passive set
+     * @param clause the clause
+     */
+    private void addToPassiveBuckets(Clause clause){
+        int size = clause.getClauseSize();
+        while(passiveBuckets.size() <= size){
+            passiveBuckets.add(new ArrayDeque<Clause>());
+        }
+        passiveBuckets.get(size).addLast(clause);
+        passiveCount++;
+    }
+    
+    /**
+     * Method to remove the next given clause (the oldest of the smallest clauses) from the passive set;
+     * within a size, the clauses of the negated query come first, then the base clauses, then the others
+     * @return the given clause
+     */
+    private Clause selectGivenClause(){
+        for (int size = 0; size < passiveBuckets.size(); size++) {
+            ArrayDeque<Clause> bucket = passiveBuckets.get(size);
+            if(size < baseCursors.length){
+                while(headCounts[size] > 0){
+                    headCounts[size]--;
+                    Clause clause = bucket.pollFirst();
+                    if(!retiredClauses.remove(clause)){
+                        passiveCount--;
+                        return clause;
+                    }
+                }
+                List<Clause> baseBucket = baseClauses.getClausesOfSize(size);
+                while(baseCursors[size] < baseBucket.size()){
+                    Clause clause = baseBucket.get(baseCursors[size]++);
+                    //Skip the base clauses dropped while passive
+                    if(!droppedBaseClauses.contains(clause)){
+                        passiveCount--;
+                        return clause;
+                    }
+                }
+            }
+            while(!bucket.isEmpty()){
+                Clause clause = bucket.pollFirst();
+                //Skip the clauses removed by backward subsumption while passive
+                if(!retiredClauses.remove(clause)){
+                    passiveCount--;
+                    return clause;
+                }
+            }
+        }
+        return null;
+    }
+}
+
+/********************************************************************************
+ * The ResolutionTask class resolves a range of the (given literal, partner literal)
+ * pairs of a given clause on a ForkJoinPool, splitting the range in halves down to
+ * SEQUENTIAL_THRESHOLD pairs. Each worker thread has its own ResolutionWorkspace,
+ * the resolvents of the halves are concatenated in order (so the result does not
+ * depend on the scheduling), and every task stops as soon as one of them derives
+ * the empty clause, the deadline passes or the search is cancelled. When the
+ * search limits its CPU time, each task adds the CPU time of its range to the
+ * search's counter
+ ********************************************************************************/
+class ResolutionTask extends RecursiveTask<ResolutionTask.Batch>{
+    
+    private static final long serialVersionUID = 1L;
+    //Number of pairs below which a task resolves its range itself instead of splitting it
+    static final int SEQUENTIAL_THRESHOLD = 32;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    //Scratch buffers of each worker thread
+    private static final ThreadLocal<ResolutionWorkspace> WORKSPACES = ThreadLocal.withInitial(ResolutionWorkspace::new);
+    
+    /**
+     * The resolvents of a range of pairs, each with the (active) partner clause it was resolved with,
+     * and the number of pairs tried
+     */
+    static class Batch{
+        private ArrayList<Clause> resolvents = new ArrayList<>();
+        private ArrayList<Clause> partners = new ArrayList<>();
+        private int pairCount;
+        
+        void add(Clause resolvent, Clause partner){
+            resolvents.add(resolvent);
+            partners.add(partner);
+        }
+        
+        void addAll(Batch other){
+            resolvents.addAll(other.resolvents);
+            partners.addAll(other.partners);
+            pairCount += other.pairCount;
+        }
+        
+        void addPair(){
+            pairCount++;
+        }
+        
+        int getPairCount(){
+            return pairCount;
+        }
+        
+        int size(){
+            return resolvents.size();
+        }
+        
+        Clause getResolvent(int index){
+            return resolvents.get(index);
+        }
+        
+        Clause getPartner(int index){
+            return partners.get(index);
+        }
+    }
+    
+    private Clause givenClause;
+    private ArrayList<Literal> givenLiterals;
+    private ArrayList<IndexedLiteral> partnerLiterals;
+    private int start;
+    private int end;
+    private AtomicBoolean stop;
+    private long deadline;
+    private CancellationToken cancellationToken;
+    private AtomicLong cpuNanos;
+    
+    /**
+     * ResolutionTask constructor
+     * @param givenClause the given clause
+     * @param givenLiterals the given literal of each pair
+     * @param partnerLiterals the partner literal (and clause) of each pair
+     * @param start the first pair of the range
+     * @param end the end (exclusive) of the range
+     * @param stop the flag shared by all tasks, set to stop them
+     * @param deadline the time (in milliseconds) after which the tasks give up
+     * @param cancellationToken the token of the search, polled by the tasks
+     * @param cpuNanos the counter to add the CPU time of the tasks to (null not to measure it)
+     */
+    public ResolutionTask(Clause givenClause, ArrayList<Literal> givenLiterals, ArrayList<IndexedLiteral> partnerLiterals,
+            int start, int end, AtomicBoolean stop, long deadline, CancellationToken cancellationToken, AtomicLong cpuNanos){
+        this.givenClause = givenClause;
+        this.givenLiterals = givenLiterals;
+        this.partnerLiterals = partnerLiterals;
+        this.start = start;
+        this.end = end;
+        this.stop = stop;
+        this.deadline = deadline;
+        this.cancellationToken = cancellationToken;
+        this.cpuNanos = cpuNanos;
+    }
+    
+    @Override
+    protected Batch compute(){
+        if(end - start <= SEQUENTIAL_THRESHOLD){
+            Batch resolvents = new Batch();
+            //The thread running the search (should it help) counts its own CPU time
+            boolean measured = cpuNanos != null && inForkJoinPool();
+            long startCpuNanos = measured ? THREADS.getCurrentThreadCpuTime() : 0;
+            resolveRange(WORKSPACES.get(), givenClause, givenLiterals, partnerLiterals, start, end, stop, deadline, cancellationToken, resolvents);
+            if(measured){
+                cpuNanos.addAndGet(THREADS.getCurrentThreadCpuTime() - startCpuNanos);
+            }
+            return resolvents;
+        }
+        int middle = (start + end) >>> 1;
+        ResolutionTask leftTask = new ResolutionTask(givenClause, givenLiterals, partnerLiterals, start, middle, stop, deadline, cancellationToken,
+                cpuNanos);
+        ResolutionTask rightTask = new ResolutionTask(givenClause, givenLiterals, partnerLiterals, middle, end, stop, deadline, cancellationToken,
+                cpuNanos);
+        rightTask.fork();
+        Batch resolvents = leftTask.compute();
+        resolvents.addAll(rightTask.join());
+        return resolvents;
+    }
+    
+    /**
+     * Method to resolve a range of pairs, stopping early on the empty clause, the deadline or a cancellation
+     * @param workspace the scratch buffers of the calling thread
+     * @param givenClause the given clause
+     * @param givenLiterals the given literal of each pair
+     * @param partnerLiterals the partner literal (and clause) of each pair
+     * @param start the first pair of the range
+     * @param end the end (exclusive) of the range
+     * @param stop the flag shared by all tasks; set when the empty clause is derived, the deadline passes
+     * or the search is cancelled
+     * @param deadline the time (in milliseconds) after which the tasks give up
+     * @param cancellationToken the token of the search
+     * @param resolvents the batch to add the resolvents (and their partner clauses) to
+     */
+    static void resolveRange(ResolutionWorkspace workspace, Clause givenClause, ArrayList<Literal> givenLiterals,
+            ArrayList<IndexedLiteral> partnerLiterals, int start, int end, AtomicBoolean stop, long deadline,
+            CancellationToken cancellationToken, Batch resolvents){
+        for (int i = start; i < end && !stop.get(); i++) {
+            IndexedLiteral partner = partnerLiterals.get(i);
+            resolvents.addPair();
+            Clause resolvent = homework.resolveLiterals(workspace, givenClause, givenLiterals.get(i), partner.getClause(), partner.getLiteral());
+            if(resolvent != null){
+                resolvents.add(resolvent, partner.getClause());
+                if(resolvent.isEmpty()){
+                    stop.set(true);
+                }
+            }
+            if(System.currentTimeMillis() > deadline || cancellationToken.isCancelled()){
+                stop.set(true);
+            }
+        }
+    }
+}
+
+/********************************************************************************
+ * The SyntaxException class is thrown for a sentence or query that cannot be
+ * parsed (see KBParser), so callers can tell bad input from internal failures
+ ********************************************************************************/
+class SyntaxException extends IllegalArgumentException{
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * SyntaxException constructor
+     * @param message what was expected, and where
+     */
+    public SyntaxException(String message){
+        super(message);
+    }
+}
+
+/********************************************************************************
+ * The KBParser class is a hand-written streaming parser for sentences (one per
+ * line, e.g. ~A(x,y) | B(x)) over a range of a ByteBuffer, typically a file read
+ * or memory-mapped with readFile(). It builds Clauses straight from the bytes:
+ * names are looked up in a per-parser cache of the interned Constants (so only
+ * new names become Strings) and variables are compared in place. Big files are
+ * split at line boundaries and the chunks parsed in parallel by parseSentences()
+ ********************************************************************************/
+class KBParser{
+    
+    //Files at least this large are memory-mapped rather than read into the heap
+    static final long MMAP_THRESHOLD = 1 << 20;
+    //Chunks smaller than this are not worth parsing on their own thread
+    static final int MIN_CHUNK_SIZE = 1 << 16;
+    
+    private SymbolTable symbols;
+    private ByteBuffer buffer;
+    private int position;
+    private int end;
+    //Cache of the Constants interned by this parser, by name bytes (open addressing)
+    private byte[][] cachedNames = new byte[256][];
+    private Constant[] cachedConstants = new Constant[256];
+    private int cachedCount;
+    //Name ranges (within the buffer) of the variables of the sentence being parsed
+    private int[] variableStarts = new int[8];
+    private int[] variableEnds = new int[8];
+    private int variableCount;
+    
+    /**
+     * KBParser constructor (the buffer is only read with absolute gets, so it can be shared between parsers)
+     * @param symbols the symbol table to intern the names in
+     * @param buffer the buffer holding the text
+     * @param start the position to start parsing at
+     * @param end the end (exclusive) of the text to parse
+     */
+    public KBParser(SymbolTable symbols, ByteBuffer buffer, int start, int end){
+        this.symbols = symbols;
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+    }
+    
+    /**
+     * Method to get the contents of a file, memory-mapped if the file is large
+     * @param path the file
+     * @return the buffer holding the file
+     * @throws IOException if the file cannot be read
+     */
+    public static ByteBuffer readFile(Path path) throws IOException{
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE){
+                throw new IOException("file too large: " + path);
+            }
+            if(size >= MMAP_THRESHOLD){
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer fileBuffer = ByteBuffer.allocate((int) size);
+            while(fileBuffer.hasRemaining() && channel.read(fileBuffer) >= 0){
+                //Keep reading until the buffer is full
+            }
+            fileBuffer.flip();
+            return fileBuffer;
+        }
+    }
+    
+    /**
+     * Method to parse the sentences of a range of a buffer, splitting it into chunks parsed in parallel
+     * @param symbols the symbol table to intern the names in
+     * @param buffer the buffer holding the sentences, one per line
+     * @param start the start of the range
+     * @param end the end (exclusive) of the range
+     * @param parallelism the number of threads to parse with
+     * @return the clauses, in the order of the sentences
+     */
+    public static List<Clause> parseSentences(SymbolTable symbols, ByteBuffer buffer, int start, int end, int parallelism){
+        int chunkCount = (int) Math.max(1, Math.min(parallelism * 4L, (end - start) / MIN_CHUNK_SIZE));
+        if(parallelism <= 1 || chunkCount == 1){
+            return new KBParser(symbols, buffer, start, end).parseAll();
+        }
+        //Split the range at line boundaries (each chunk after the first starts on a newline)
+        int[] chunkBounds = new int[chunkCount + 1];
+        chunkBounds[0] = start;
+        chunkBounds[chunkCount] = end;
+        for (int i = 1; i < chunkCount; i++) {
+            int bound = Math.max(chunkBounds[i - 1], (int) (start + (long) (end - start) * i / chunkCount));
+            while(bound < end && buffer.get(bound) != '\n'){
+                bound++;
+            }
+            chunkBounds[i] = bound;
+        }
+        ForkJoinPool parsePool = new ForkJoinPool(parallelism);
+        try {
+            ArrayList<Callable<ArrayList<Clause>>> chunkTasks = new ArrayList<>();
+            for (int i = 0; i < chunkCount; i++) {
+                KBParser chunkParser = new KBParser(symbols, buffer, chunkBounds[i], chunkBounds[i + 1]);
+                chunkTasks.add(chunkParser::parseAll);
+            }
+            ArrayList<Clause> clauses = new ArrayList<>();
+            for (Future<ArrayList<Clause>> chunkClauses : parsePool.invokeAll(chunkTasks)) {
+                clauses.addAll(chunkClauses.get());
+            }
+            return clauses;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while parsing", ex);
+        } catch (ExecutionException ex) {
+            if(ex.getCause() instanceof RuntimeException){
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            parsePool.shutdown();
+        }
+    }
+    
+    /**
+     * Method to parse every remaining sentence
+     * @return the clauses, in the order of the sentences
+     */
+    public ArrayList<Clause> parseAll(){
+        ArrayList<Clause> clauses = new ArrayList<>();
+        Clause clause;
+        while((clause = nextSentence()) != null){
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+    
+    /**
+     * Getter method to retrieve the position the parser has reached
+     * @return the position within the buffer
+     */
+    public int getPosition(){
+        return position;
+    }
+    
+    /**
+     * Method to read an integer and skip the rest of its line
+     * @return the integer
+     */
+    public int nextInt(){
+        skipWhitespace();
+        int value = 0;
+        int digitsStart = position;
+        while(position < end && isDigit(buffer.get(position))){
+            value = value * 10 + (buffer.get(position++) - '0');
+        }
+        if(position == digitsStart){
+            throw error("integer expected");
+        }
+        nextLine();
+        return value;
+    }
+    
+    /**
+     * Method to skip sentences without parsing them (blank lines are skipped, as by nextSentence())
+     * @param count the number of sentences to skip
+     * @return the position at the end of the line of the last one (the end of the text if it holds fewer)
+     */
+    public int skipSentences(int count){
+        for (int i = 0; i < count; i++) {
+            skipWhitespace();
+            while(position < end && buffer.get(position) != '\n'){
+                position++;
+            }
+        }
+        return position;
+    }
+    
+    /**
+     * Method to read the rest of the current line
+     * @return the line, without its line terminator
+     */
+    public String nextLine(){
+        int lineStart = position;
+        while(position < end && buffer.get(position) != '\n'){
+            position++;
+        }
+        int lineEnd = position;
+        if(position < end){
+            position++;
+        }
+        if(lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r'){
+            lineEnd--;
+        }
+        byte[] lineBytes = new byte[lineEnd - lineStart];
+        for (int i = 0; i < lineBytes.length; i++) {
+            lineBytes[i] = buffer.get(lineStart + i);
+        }
+        return new String(lineBytes, StandardCharsets.US_ASCII);
+    }
+    
+    /**
+     * Method to parse the next sentence (blank lines are skipped)
+     * @return the clause, or null at the end of the text
+     */
+    public Clause nextSentence(){
+        skipWhitespace();
+        if(position >= end){
+            return null;
+        }
+        LinkedHashSet<Literal> literalSet = new LinkedHashSet<>();
+        variableCount = 0;
+        while(true){
+            literalSet.add(parseLiteral(false));
+            skipSpaces();
+            if(position >= end || isLineEnd(buffer.get(position))){
+                return new Clause(literalSet);
+            }
+            expect('|');
+        }
+    }
+    
+    /**
+     * Method to parse a query: a single literal over constants (every argument is a constant,
+     * whatever its case), alone on its line
+     * @return the single-literal clause
+     */
+    public Clause nextQuery(){
+        skipWhitespace();
+        variableCount = 0;
+        LinkedHashSet<Literal> literalSet = new LinkedHashSet<>();
+        literalSet.add(parseLiteral(true));
+        skipWhitespace();
+        if(position < end){
+            throw error("end of query expected");
+        }
+        return new Clause(literalSet);
+    }
+    
+    /**
+     * Method to parse a literal: [~]Predicate(Term,...,Term)
+     * @param ground true to read every argument as a constant (queries), false to read the names
+     * starting with a lowercase letter as variables (sentences)
+     * @return the literal
+     */
+    private Literal parseLiteral(boolean ground){
+        skipSpaces();
+        boolean sign = true;
+        if(position < end && buffer.get(position) == '~'){
+            sign = false;
+            position++;
+            skipSpaces();
+        }
+        int nameStart = position;
+        skipName();
+        Constant predicate = constant(nameStart, position);
+        ArrayList<Term> parameters = new ArrayList<>();
+        skipSpaces();
+        if(position < end && buffer.get(position) == '('){
+            position++;
+            do{
+                skipSpaces();
+                nameStart = position;
+                skipName();
+                //Names starting with an uppercase letter are constants, the others variables
+                byte firstByte = buffer.get(nameStart);
+                parameters.add(ground || (firstByte >= 'A' && firstByte <= 'Z') ? constant(nameStart, position) : variable(nameStart, position));
+                skipSpaces();
+            } while(accept(','));
+            expect(')');
+        }
+        return new Literal(sign, symbols.getTuple(predicate, parameters));
+    }
+    
+    /**
+     * Method to retrieve the Constant for a name, from the cache if this parser has met it before
+     * @param nameStart the start of the name within the buffer
+     * @param nameEnd the end (exclusive) of the name
+     * @return the interned Constant
+     */
+    private Constant constant(int nameStart, int nameEnd){
+        int hash = 0;
+        for (int i = nameStart; i < nameEnd; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int mask = cachedNames.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while(cachedNames[slot] != null){
+            if(sameName(cachedNames[slot], nameStart, nameEnd)){
+                return cachedConstants[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        byte[] name = new byte[nameEnd - nameStart];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = buffer.get(nameStart + i);
+        }
+        Constant constant = symbols.getConstant(new String(name, StandardCharsets.US_ASCII));
+        cachedNames[slot] = name;
+        cachedConstants[slot] = constant;
+        if(++cachedCount * 2 > cachedNames.length){
+            growCache();
+        }
+        return constant;
+    }
+    
+    /**
+     * Method to double the size of the Constant cache
+     */
+    private void growCache(){
+        byte[][] oldNames = cachedNames;
+        Constant[] oldConstants = cachedConstants;
+        cachedNames = new byte[oldNames.length * 2][];
+        cachedConstants = new Constant[oldNames.length * 2];
+        int mask = cachedNames.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if(oldNames[i] == null){
+                continue;
+            }
+            int hash = 0;
+            for (byte nameByte : oldNames[i]) {
+                hash = 31 * hash + nameByte;
+            }
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while(cachedNames[slot] != null){
+                slot = (slot + 1) & mask;
+            }
+            cachedNames[slot] = oldNames[i];
+            cachedConstants[slot] = oldConstants[i];
+        }
+    }
+    
+    /**
+     * Method to retrieve the Variable for a name within the current sentence (numbered in order of appearance)
+     * @param nameStart the start of the name within the buffer
+     * @param nameEnd the end (exclusive) of the name
+     * @return the clause-local Variable
+     */
+    private Variable variable(int nameStart, int nameEnd){
+        for (int i = 0; i < variableCount; i++) {
+            if(variableEnds[i] - variableStarts[i] == nameEnd - nameStart && sameRange(variableStarts[i], nameStart, nameEnd - nameStart)){
+                return Variable.get(i);
+            }
+        }
+        if(variableCount == variableStarts.length){
+            variableStarts = Arrays.copyOf(variableStarts, variableCount * 2);
+            variableEnds = Arrays.copyOf(variableEnds, variableCount * 2);
+        }
+        variableStarts[variableCount] = nameStart;
+        variableEnds[variableCount] = nameEnd;
+        return Variable.get(variableCount++);
+    }
+    
+    /**
+     * Method to compare a cached name with a name within the buffer
+     */
+    private boolean sameName(byte[] name, int nameStart, int nameEnd){
+        if(name.length != nameEnd - nameStart){
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if(name[i] != buffer.get(nameStart + i)){
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Method to compare two ranges of the buffer of the same length
+     */
+    private boolean sameRange(int firstStart, int secondStart, int length){
+        for (int i = 0; i < length; i++) {
+            if(buffer.get(firstStart + i) != buffer.get(secondStart + i)){
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Method to skip a name ([A-Za-z][A-Za-z0-9_]*)
+     */
+    private void skipName(){
+        if(position >= end || !isLetter(buffer.get(position))){
+            throw error("name expected");
+        }
+        position++;
+        while(position < end && (isLetter(buffer.get(position)) || isDigit(buffer.get(position)) || buffer.get(position) == '_')){
+            position++;
+        }
+    }
+    
+    /**
+     * Method to skip spaces and tabs (but not line ends)
+     */
+    private void skipSpaces(){
+        while(position < end && (buffer.get(position) == ' ' || buffer.get(position) == '\t')){
+            position++;
+        }
+    }
+    
+    /**
+     * Method to skip any whitespace, line ends included
+     */
+    private void skipWhitespace(){
+        while(position < end && (buffer.get(position) == ' ' || buffer.get(position) == '\t' || isLineEnd(buffer.get(position)))){
+            position++;
+        }
+    }
+    
+    /**
+     * Method to consume a character if it is next
+     * @return true iff the character was consumed
+     */
+    private boolean accept(char expected){
+        if(position < end && buffer.get(position) == expected){
+            position++;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Method to consume a character that must be next
+     */
+    private void expect(char expected){
+        if(!accept(expected)){
+            throw error("'" + expected + "' expected");
+        }
+    }
+    
+    /**
+     * Method to build the exception for a syntax error at the current position
+     */
+    private SyntaxException error(String message){
+        return new SyntaxException(message + " at offset " + position);
+    }
+    
+    private static boolean isLetter(byte character){
+        return (character >= 'A' && character <= 'Z') || (character >= 'a' && character <= 'z');
+    }
+    
+    private static boolean isDigit(byte character){
+        return character >= '0' && character <= '9';
+    }
+    
+    private static boolean isLineEnd(byte character){
+        return character == '\n' || character == '\r';
+    }
+}
+
+/********************************************************************************
+ * The ReducedClauseSet class is an immutable view of the reduced clauses of one
+ * version of a KnowledgeBase: the clauses in order, grouped by size, and the
+ * subsumption index they were reduced with. Every search of that version starts
+ * from it as it is (see GivenClauseProver), so asking a query neither copies nor
+ * indexes the KB again
+ ********************************************************************************/
+class ReducedClauseSet{
+    
+    //The set of no clauses
+    static final ReducedClauseSet EMPTY = new ReducedClauseSet(Collections.<Clause>emptyList(), Collections.<Clause>emptySet(),
+            new FeatureVectorIndex());
+    
+    private List<Clause> clauses;
+    private Set<Clause> clauseSet;
+    private FeatureVectorIndex index;
+    //The clauses of each size, in order
+    private ArrayList<List<Clause>> clausesBySize = new ArrayList<>();
+    
+    /**
+     * ReducedClauseSet constructor
+     * @param clauses the clauses, free of tautologies and of clauses subsumed by each other
+     * @param clauseSet the same clauses, as a set (no longer modified)
+     * @param index the same clauses, indexed by feature vector (no longer modified)
+     */
+    ReducedClauseSet(List<Clause> clauses, Set<Clause> clauseSet, FeatureVectorIndex index){
+        this.clauses = clauses;
+        this.clauseSet = clauseSet;
+        this.index = index;
+        for (Clause clause : clauses) {
+            while(clausesBySize.size() <= clause.getClauseSize()){
+                clausesBySize.add(new ArrayList<Clause>());
+            }
+            clausesBySize.get(clause.getClauseSize()).add(clause);
+        }
+    }
+    
+    /**
+     * Getter method to retrieve the clauses
+     * @return the clauses, in the order they were reduced
+     */
+    public List<Clause> getClauses(){
+        return clauses;
+    }
+    
+    /**
+     * Getter method to retrieve the clauses of a size
+     * @param size the clause size
+     * @return the clauses of that size, in order
+     */
+    public List<Clause> getClausesOfSize(int size){
+        return size < clausesBySize.size() ? clausesBySize.get(size) : Collections.<Clause>emptyList();
+    }
+    
+    /**
+     * Getter method to retrieve the number of clause sizes (one more than the largest clause size)
+     * @return the number of clause sizes
+     */
+    public int getSizeCount(){
+        return clausesBySize.size();
+    }
+    
+    /**
+     * Getter method to retrieve the number of clauses
+     * @return the number of clauses
+     */
+    public int size(){
+        return clauses.size();
+    }
+    
+    /**
+     * Method to check whether the set holds a clause (or a variant of it)
+     * @param clause the clause
+     * @return true iff the set holds the clause
+     */
+    public boolean contains(Clause clause){
+        return clauseSet.contains(clause);
+    }
+    
+    /**
+     * Method to find a clause of the set subsuming the given clause
+     * @param clause the clause
+     * @param features the feature vector of the clause
+     * @param bindings the substitution map used for matching
+     * @param ignoredClauses the clauses of the set to ignore
+     * @return a subsuming clause, or null if there is none
+     */
+    public Clause findSubsuming(Clause clause, int[] features, SubstitutionMap bindings, Set<Clause> ignoredClauses){
+        return index.findSubsuming(clause, features, bindings, ignoredClauses);
+    }
+    
+    /**
+     * Method to find the clauses of the set subsumed by the given clause (other than the clause itself)
+     * @param clause the clause
+     * @param features the feature vector of the clause
+     * @param bindings the substitution map used for matching
+     * @param ignoredClauses the clauses of the set to ignore
+     * @return the list of subsumed clauses
+     */
+    public ArrayList<Clause> findSubsumed(Clause clause, int[] features, SubstitutionMap bindings, Set<Clause> ignoredClauses){
+        return index.findSubsumed(clause, features, bindings, ignoredClauses);
+    }
+}
+
+/********************************************************************************
+ * The KnowledgeBase class holds the clauses told so far, along with the SymbolTable
+ * their names are interned in. Telling is synchronized and bumps the version of
+ * the KB; queries run against an immutable snapshot of the clauses (rebuilt only
+ * after the KB changed), so a query never sees a half-told KB
+ * The KB also keeps the told clauses simplified and reduced against each other
+ * (as the prover would on each query), updating that set and its subsumption
+ * index with each told clause only, so queries can skip simplifying the KB, and
+ * the lemmas earlier queries derived from it (see LemmaStore). The reduced clauses and their index are handed
+ * to the queries as a ReducedClauseSet, and copied before the next told clause
+ * changes them
+ ********************************************************************************/
+class KnowledgeBase{
+    
+    private SymbolTable symbols = new SymbolTable();
+    private LinkedHashSet<Clause> clauses = new LinkedHashSet<>();
+    private long version;
+    //Immutable copy of the clauses, valid while snapshotVersion == version
+    private List<Clause> snapshot = Collections.emptyList();
+    private long snapshotVersion;
+    //The told clauses without tautologies, condensed, with their factors and without subsumed clauses
+    private LinkedHashSet<Clause> reducedClauses = new LinkedHashSet<>();
+    private FeatureVectorIndex reductionIndex = new FeatureVectorIndex();
+    private SubstitutionMap reductionBindings = new SubstitutionMap();
+    //Immutable copy of the reduced clauses, valid while reducedSnapshotVersion == version
+    private List<Clause> reducedSnapshot = Collections.emptyList();
+    private long reducedSnapshotVersion;
+    //The reduced clauses handed to the queries, valid while reducedClauseSetVersion == version
+    private ReducedClauseSet reducedClauseSet;
+    private long reducedClauseSetVersion;
+    //True iff reducedClauses and reductionIndex are shared with reducedClauseSet (so must be copied before changing)
+    private boolean reductionShared;
+    //Loader of the told clauses of a restored KB, until they are first needed
+    private Supplier<List<Clause>> pendingClauseLoader;
+    private int pendingClauseCount;
+    //Clauses derived from the KB alone by earlier queries (still entailed after any TELL)
+    private LemmaStore lemmaStore = new LemmaStore(LemmaStore.DEFAULT_CAPACITY);
+    
+    /**
+     * Method to tell the KB a sentence
+     * @param sentence the sentence (e.g. ~A(x,y) | B(x))
+     * @return true iff the KB did not hold the clause yet
+     */
+    public synchronized boolean tell(String sentence){
+        return tell(homework.parseSentence(sentence, symbols));
+    }
+    
+    /**
+     * Method to tell the KB the sentences of a file (one per line), parsed in parallel if the file is big
+     * @param path the file
+     * @param parallelism the number of threads to parse with
+     * @return the number of clauses the KB did not hold yet
+     * @throws IOException if the file cannot be read
+     */
+    public int tellFile(Path path, int parallelism) throws IOException{
+        ByteBuffer fileBuffer = KBParser.readFile(path);
+        return tellAll(KBParser.parseSentences(symbols, fileBuffer, 0, fileBuffer.limit(), parallelism));
+    }
+    
+    /**
+     * Method to tell the KB several clauses (their names must be interned in this KB's SymbolTable)
+     * @param newClauses the clauses
+     * @return the number of clauses the KB did not hold yet
+     */
+    public synchronized int tellAll(List<Clause> newClauses){
+        int addedCount = 0;
+        for (Clause clause : newClauses) {
+            if(tell(clause)){
+                addedCount++;
+            }
+        }
+        return addedCount;
+    }
+    
+    /**
+     * Method to tell the KB a clause (its names must be interned in this KB's SymbolTable)
+     * @param clause the clause
+     * @return true iff the KB did not hold the clause yet
+     */
+    public synchronized boolean tell(Clause clause){
+        loadPendingClauses();
+        if(!clauses.add(clause)){
+            return false;
+        }
+        reduce(clause);
+        version++;
+        return true;
+    }
+    
+    /**
+     * Method to fill an empty KB with clauses read back from a KBSnapshot (their names must be
+     * interned in this KB's SymbolTable); the reduced clauses are indexed as they are, not reduced again,
+     * and the told clauses are only loaded when first needed
+     * @param reducedClauseList the reduced clauses
+     * @param toldCount the number of told clauses
+     * @param toldClauseLoader the loader of the told clauses
+     */
+    synchronized void restore(List<Clause> reducedClauseList, int toldCount, Supplier<List<Clause>> toldClauseLoader){
+        if(!clauses.isEmpty() || pendingClauseLoader != null){
+            throw new IllegalStateException("cannot restore into a non-empty KB");
+        }
+        unshareReduction();
+        for (Clause clause : reducedClauseList) {
+            if(reducedClauses.add(clause)){
+                reductionIndex.insert(clause, FeatureVectorIndex.features(clause));
+            }
+        }
+        pendingClauseLoader = toldClauseLoader;
+        pendingClauseCount = toldCount;
+        version = toldCount;
+    }
+    
+    /**
+     * Method to load the told clauses left pending by restore(), if any
+     */
+    private void loadPendingClauses(){
+        if(pendingClauseLoader != null){
+            clauses.addAll(pendingClauseLoader.get());
+            pendingClauseLoader = null;
+        }
+    }
+    
+    /**
+     * Method to add a told clause to the reduced clauses: the clause is dropped if it is a tautology
+     * or subsumed by a reduced clause, and otherwise removes the reduced clauses it subsumes
+     * @param newClause the clause
+     */
+    private void reduce(Clause newClause){
+        if(ClauseSimplifier.isTautology(newClause)){
+            return;
+        }
+        Clause clause = ClauseSimplifier.condense(newClause, reductionBindings);
+        if(reducedClauses.contains(clause)){
+            return;
+        }
+        int[] features = FeatureVectorIndex.features(clause);
+        if(reductionIndex.findSubsuming(clause, features, reductionBindings) != null){
+            return;
+        }
+        unshareReduction();
+        for (Clause subsumedClause : reductionIndex.findSubsumed(clause, features, reductionBindings)) {
+            reducedClauses.remove(subsumedClause);
+            reductionIndex.remove(subsumedClause, FeatureVectorIndex.features(subsumedClause));
+        }
+        reducedClauses.add(clause);
+        reductionIndex.insert(clause, features);
+        for (Clause factor : ClauseSimplifier.factors(clause, reductionBindings)) {
+            reduce(factor);
+        }
+    }
+    
+    /**
+     * Method to copy the reduced clauses and their index if a ReducedClauseSet shares them, before changing them
+     */
+    private void unshareReduction(){
+        if(reductionShared){
+            reducedClauses = new LinkedHashSet<>(reducedClauses);
+            reductionIndex = reductionIndex.copy();
+            reductionShared = false;
+        }
+    }
+    
+    /**
+     * Method to parse a query into the clause of its negation (~alpha); the query is parsed
+     * into a QuerySymbolTable, so names the KB has not seen are not interned in its SymbolTable
+     * @param query the query (e.g. A(Bob,Alice))
+     * @return the negated query clause
+     */
+    public Clause parseNegatedQuery(String query){
+        return homework.parseQuery(homework.negateQuery(query.trim()), new QuerySymbolTable(symbols));
+    }
+    
+    /**
+     * Getter method to retrieve the clauses of the KB
+     * @return an immutable snapshot of the clauses, in the order they were told
+     */
+    public synchronized List<Clause> getClauses(){
+        loadPendingClauses();
+        if(snapshotVersion != version){
+            snapshot = Collections.unmodifiableList(new ArrayList<>(clauses));
+            snapshotVersion = version;
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Getter method to retrieve the told clauses simplified and reduced against each other
+     * @return an immutable snapshot of the reduced clauses
+     */
+    public synchronized List<Clause> getReducedClauses(){
+        if(reducedSnapshotVersion != version){
+            reducedSnapshot = Collections.unmodifiableList(new ArrayList<>(reducedClauses));
+            reducedSnapshotVersion = version;
+        }
+        return reducedSnapshot;
+    }
+    
+    /**
+     * Getter method to retrieve the reduced clauses along with their index, for the searches to start from
+     * @return an immutable view of the reduced clauses
+     */
+    public synchronized ReducedClauseSet getReducedClauseSet(){
+        if(reducedClauseSet == null || reducedClauseSetVersion != version){
+            reducedClauseSet = new ReducedClauseSet(getReducedClauses(), reducedClauses, reductionIndex);
+            reducedClauseSetVersion = version;
+            reductionShared = true;
+        }
+        return reducedClauseSet;
+    }
+    
+    /**
+     * Getter method to retrieve the version of the KB (incremented by every clause told)
+     * @return the version
+     */
+    public synchronized long getVersion(){
+        return version;
+    }
+    
+    /**
+     * Getter method to retrieve the number of clauses of the KB
+     * @return the number of clauses
+     */
+    public synchronized int size(){
+        return pendingClauseLoader != null ? pendingClauseCount : clauses.size();
+    }
+    
+    /**
+     * Getter method to retrieve the symbol table of the KB
+     * @return the symbol table
+     */
+    public SymbolTable getSymbols(){
+        return symbols;
+    }
+    
+    /**
+     * Getter method to retrieve the lemmas derived from the KB by earlier queries
+     * @return the lemma store
+     */
+    public LemmaStore getLemmaStore(){
+        return lemmaStore;
+    }
+}
+
+/********************************************************************************
+ * The KBSnapshot class writes a KnowledgeBase to a compact binary file and loads
+ * it back (memory-mapped), so that a prover is query-ready without parsing text
+ * or reducing the KB again. All values are big-endian ints:
+ *   MAGIC, FORMAT_VERSION
+ *   symbol count, then per symbol: byte length and UTF-8 bytes (padded to 4 bytes)
+ *   reduced clause count, then per clause: code length and the canonical code
+ *   told clause count, then per clause: code length and the canonical code
+ * The canonical code is already a flat, variant-independent array of symbol IDs
+ * and variable ordinals, so clauses are rebuilt from it directly. Queries only
+ * need the reduced clauses, so the told clauses (usually far more) are decoded
+ * from the mapped file only when the KB first needs them
+ ********************************************************************************/
+class KBSnapshot{
+    
+    static final int MAGIC = 0x4B42534E;
+    static final int FORMAT_VERSION = 1;
+    
+    /**
+     * Method to write a snapshot of a knowledge base
+     * @param knowledgeBase the knowledge base
+     * @param path the snapshot file to (over)write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(KnowledgeBase knowledgeBase, Path path) throws IOException{
+        List<Clause> toldClauses;
+        List<Clause> reducedClauses;
+        int symbolCount;
+        //Take the clauses and the symbols at the same version of the KB
+        synchronized(knowledgeBase){
+            toldClauses = knowledgeBase.getClauses();
+            reducedClauses = knowledgeBase.getReducedClauses();
+            symbolCount = knowledgeBase.getSymbols().size();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(symbolCount);
+            for (int id = 0; id < symbolCount; id++) {
+                byte[] name = knowledgeBase.getSymbols().getName(id).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+                out.write(new byte[(4 - name.length % 4) % 4]);
+            }
+            out.writeInt(reducedClauses.size());
+            for (Clause clause : reducedClauses) {
+                writeCode(out, clause.getCanonicalCode());
+            }
+            out.writeInt(toldClauses.size());
+            for (Clause clause : toldClauses) {
+                writeCode(out, clause.getCanonicalCode());
+            }
+        }
+    }
+    
+    /**
+     * Method to write a length-prefixed canonical code
+     */
+    private static void writeCode(DataOutputStream out, int[] code) throws IOException{
+        out.writeInt(code.length);
+        for (int entry : code) {
+            out.writeInt(entry);
+        }
+    }
+    
+    /**
+     * Method to load a snapshot into a new knowledge base
+     * @param path the snapshot file
+     * @return the knowledge base
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static KnowledgeBase load(Path path) throws IOException{
+        ByteBuffer snapshotBuffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            snapshotBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if(snapshotBuffer.limit() < 8 || snapshotBuffer.getInt() != MAGIC || snapshotBuffer.getInt() != FORMAT_VERSION){
+            throw new IOException("not a KB snapshot (or an unsupported version): " + path);
+        }
+        KnowledgeBase knowledgeBase = new KnowledgeBase();
+        SymbolTable symbols = knowledgeBase.getSymbols();
+        //The fresh symbol table assigns the IDs in the same order, so the codes can be used as they are
+        Constant[] constants = new Constant[snapshotBuffer.getInt()];
+        for (int id = 0; id < constants.length; id++) {
+            byte[] name = new byte[snapshotBuffer.getInt()];
+            snapshotBuffer.get(name);
+            snapshotBuffer.position(snapshotBuffer.position() + (4 - name.length % 4) % 4);
+            constants[id] = symbols.getConstant(new String(name, StandardCharsets.UTF_8));
+            if(constants[id].getSymbolId() != id){
+                throw new IOException("duplicate symbol in snapshot: " + constants[id]);
+            }
+        }
+        IntBuffer codeBuffer = snapshotBuffer.slice().asIntBuffer();
+        ArrayList<Clause> reducedClauses = new ArrayList<>();
+        int reducedCount = codeBuffer.get();
+        for (int i = 0; i < reducedCount; i++) {
+            reducedClauses.add(readClause(codeBuffer, constants, symbols));
+        }
+        //Leave the told clauses in the mapped file until the KB needs them
+        int toldCount = codeBuffer.get();
+        IntBuffer toldBuffer = codeBuffer.slice();
+        knowledgeBase.restore(reducedClauses, toldCount, () -> {
+            ArrayList<Clause> toldClauses = new ArrayList<>(toldCount);
+            for (int i = 0; i < toldCount; i++) {
+                toldClauses.add(readClause(toldBuffer, constants, symbols));
+            }
+            return toldClauses;
+        });
+        return knowledgeBase;
+    }
+    
+    /**
+     * Method to rebuild a clause from its length-prefixed canonical code
+     */
+    private static Clause readClause(IntBuffer codeBuffer, Constant[] constants, SymbolTable symbols){
+        int[] code = new int[codeBuffer.get()];
+        codeBuffer.get(code);
+        int[] position = {0};
+        LinkedHashSet<Literal> literalSet = new LinkedHashSet<>();
+        while(position[0] < code.length){
+            boolean sign = code[position[0]++] == 1;
+            literalSet.add(new Literal(sign, decodeTerm(code, position, constants, symbols)));
+        }
+        return new Clause(literalSet);
+    }
+    
+    /**
+     * Method to rebuild a term from a canonical code (see Clause.encodeTerm())
+     * @param code the code
+     * @param position the position to read at, advanced past the term
+     * @return the term
+     */
+    private static Term decodeTerm(int[] code, int[] position, Constant[] constants, SymbolTable symbols){
+        int entry = code[position[0]++];
+        switch(entry & 3){
+            case 1:
+                return Variable.get(entry >>> 2);
+            case 2:
+                Constant functor = constants[entry >>> 2];
+                int arity = code[position[0]++];
+                ArrayList<Term> parameters = new ArrayList<>(arity);
+                for (int i = 0; i < arity; i++) {
+                    parameters.add(decodeTerm(code, position, constants, symbols));
+                }
+                return symbols.getTuple(functor, parameters);
+            default:
+                return constants[entry >>> 2];
+        }
+    }
+}
+
+/********************************************************************************
+ * The LemmaStore class holds clauses derived from the KB alone (never from a
+ * negated query) while answering earlier queries, so that later searches start
+ * from them instead of deriving them again. Since the KB only grows, a lemma
+ * stays entailed across TELLs. The store is bounded: only short clauses are kept,
+ * a lemma subsumed by another is dropped, and the oldest lemmas are evicted first
+ ********************************************************************************/
+class LemmaStore{
+    
+    static final int DEFAULT_CAPACITY = 256;
+    //Lemmas longer than this rarely shorten a proof and mostly widen the search
+    static final int MAX_LEMMA_SIZE = 2;
+    
+    private int capacity;
+    //In insertion order, so that eviction starts at the oldest lemma
+    private LinkedHashSet<Clause> lemmas = new LinkedHashSet<>();
+    private FeatureVectorIndex subsumptionIndex = new FeatureVectorIndex();
+    private SubstitutionMap bindings = new SubstitutionMap();
+    //Incremented whenever the lemmas change (a search may then end differently, see QueryCache)
+    private long generation;
+    
+    /**
+     * LemmaStore constructor
+     * @param capacity the maximum number of lemmas held (0 disables the store)
+     */
+    public LemmaStore(int capacity){
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Method to add new lemmas, skipping those subsumed by a held lemma and dropping the held lemmas
+     * a new one subsumes
+     * @param newLemmas clauses entailed by the KB alone
+     * @return the number of lemmas added
+     */
+    public synchronized int addAll(List<Clause> newLemmas){
+        int addedCount = 0;
+        for (Clause lemma : newLemmas) {
+            if(capacity == 0 || lemma.isEmpty() || lemma.getClauseSize() > MAX_LEMMA_SIZE || lemmas.contains(lemma)){
+                continue;
+            }
+            int[] features = FeatureVectorIndex.features(lemma);
+            if(subsumptionIndex.findSubsuming(lemma, features, bindings) != null){
+                continue;
+            }
+            for (Clause subsumedLemma : subsumptionIndex.findSubsumed(lemma, features, bindings)) {
+                remove(subsumedLemma);
+            }
+            lemmas.add(lemma);
+            subsumptionIndex.insert(lemma, features);
+            addedCount++;
+            if(lemmas.size() > capacity){
+                remove(lemmas.iterator().next());
+            }
+        }
+        if(addedCount > 0){
+            generation++;
+        }
+        return addedCount;
+    }
+    
+    /**
+     * Method to remove a lemma from the store and its index
+     * @param lemma the lemma
+     */
+    private void remove(Clause lemma){
+        lemmas.remove(lemma);
+        subsumptionIndex.remove(lemma, FeatureVectorIndex.features(lemma));
+    }
+    
+    /**
+     * Method to get a snapshot of the lemmas, oldest first
+     * @return the lemmas
+     */
+    public synchronized List<Clause> getLemmas(){
+        return new ArrayList<>(lemmas);
+    }
+    
+    /**
+     * Method to remove every lemma
+     */
+    public synchronized void clear(){
+        lemmas.clear();
+        subsumptionIndex = new FeatureVectorIndex();
+        generation++;
+    }
+    
+    /**
+     * Getter method to retrieve the generation of the lemmas, incremented whenever they change
+     * @return the generation
+     */
+    public synchronized long getGeneration(){
+        return generation;
+    }
+    
+    /**
+     * @return the number of lemmas held
+     */
+    public synchronized int size(){
+        return lemmas.size();
+    }
+}
+
+/********************************************************************************
+ * The QueryCache class is a bounded LRU cache of query answers. An answer is only
+ * valid for the KB it was computed on, so entries are keyed by the KB version and
+ * the negated query clause (whose equality is its canonical code, so variants of
+ * a query share an entry); when the KB changes, the old entries can never match
+ * again and are dropped on the next insertion
+ * A decided answer holds for any lemmas (they are entailed by the KB), but an
+ * UNKNOWN one only for the lemmas its search started from: more lemmas may let
+ * the same search decide the query. Each entry therefore records the generation
+ * of the LemmaStore, and an UNKNOWN entry of an older generation is a miss
+ ********************************************************************************/
+class QueryCache{
+    
+    static final int DEFAULT_CAPACITY = 1024;
+    
+    /**
+     * The key of an entry: a negated query clause at a KB version
+     */
+    private static class Key{
+        private long version;
+        private Clause negatedQuery;
+        
+        Key(long version, Clause negatedQuery){
+            this.version = version;
+            this.negatedQuery = negatedQuery;
+        }
+        
+        @Override
+        public boolean equals(Object obj){
+            if(!(obj instanceof Key)){
+                return false;
+            }
+            Key other = (Key) obj;
+            return version == other.version && negatedQuery.equals(other.negatedQuery);
+        }
+        
+        @Override
+        public int hashCode(){
+            return 31 * Long.hashCode(version) + negatedQuery.hashCode();
+        }
+    }
+    
+    /**
+     * A cached answer and the generation of the lemmas its search started from
+     */
+    private static class Entry{
+        private QueryResult result;
+        private long lemmaGeneration;
+        
+        Entry(QueryResult result, long lemmaGeneration){
+            this.result = result;
+            this.lemmaGeneration = lemmaGeneration;
+        }
+    }
+    
+    private int capacity;
+    //Access-ordered, so that iteration (and eviction) starts at the least recently used entry
+    private LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    //The KB version of the entries held
+    private long entriesVersion;
+    private long hitCount;
+    private long missCount;
+    
+    /**
+     * QueryCache constructor
+     * @param capacity the maximum number of answers held (0 disables the cache)
+     */
+    public QueryCache(int capacity){
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Method to look up the answer to a negated query at a KB version, counting the hit or miss
+     * @param version the KB version
+     * @param lemmaGeneration the current generation of the lemmas (see LemmaStore.getGeneration())
+     * @param negatedQuery the negated query clause
+     * @return the cached result, or null
+     */
+    public synchronized QueryResult get(long version, long lemmaGeneration, Clause negatedQuery){
+        Key key = new Key(version, negatedQuery);
+        Entry entry = entries.get(key);
+        //An UNKNOWN answer searched with other lemmas must be searched again
+        if(entry != null && entry.result.isUnknown() && entry.lemmaGeneration != lemmaGeneration){
+            entries.remove(key);
+            entry = null;
+        }
+        if(entry == null){
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.result;
+    }
+    
+    /**
+     * Method to cache the answer to a negated query at a KB version
+     * @param version the KB version the answer was computed on
+     * @param lemmaGeneration the generation of the lemmas the search started from
+     * @param negatedQuery the negated query clause
+     * @param result the result
+     */
+    public synchronized void put(long version, long lemmaGeneration, Clause negatedQuery, QueryResult result){
+        if(capacity <= 0 || version < entriesVersion){
+            return;
+        }
+        //The KB changed: the entries held can never match again
+        if(version > entriesVersion){
+            entries.clear();
+            entriesVersion = version;
+        }
+        entries.put(new Key(version, negatedQuery), new Entry(result, lemmaGeneration));
+        evict();
+    }
+    
+    /**
+     * Method to change the maximum number of answers held, evicting the least recently used ones
+     * @param capacity the new capacity (0 disables the cache)
+     */
+    public synchronized void setCapacity(int capacity){
+        this.capacity = capacity;
+        evict();
+    }
+    
+    /**
+     * Method to evict the least recently used entries down to the capacity
+     */
+    private void evict(){
+        Iterator<Key> keyIterator = entries.keySet().iterator();
+        while(entries.size() > Math.max(0, capacity) && keyIterator.hasNext()){
+            keyIterator.next();
+            keyIterator.remove();
+        }
+    }
+    
+    /**
+     * Method to remove every cached answer (the counters are kept)
+     */
+    public synchronized void clear(){
+        entries.clear();
+    }
+    
+    /**
+     * Getter method to retrieve the number of answers held
+     * @return the number of entries
+     */
+    public synchronized int size(){
+        return entries.size();
+    }
+    
+    /**
+     * Getter method to retrieve the number of lookups that found an answer
+     * @return the number of hits
+     */
+    public synchronized long getHitCount(){
+        return hitCount;
+    }
+    
+    /**
+     * Getter method to retrieve the number of lookups that found no answer
+     * @return the number of misses
+     */
+    public synchronized long getMissCount(){
+        return missCount;
+    }
+}
+
+/********************************************************************************
+ * The QueryResult class holds the answer to a query along with the statistics of
+ * the search that produced it
+ ********************************************************************************/
+class QueryResult{
+    
+    private String query;
+    private boolean entailed;
+    private long elapsedNanos;
+    private ProverStatistics statistics;
+    private StopReason stopReason;
+    private boolean cached;
+    
+    /**
+     * QueryResult constructor
+     * @param query the query
+     * @param entailed true iff the KB entails the query
+     * @param elapsedNanos the time taken to answer, in nanoseconds
+     * @param prover the prover that answered (null if the query failed before the search)
+     */
+    public QueryResult(String query, boolean entailed, long elapsedNanos, GivenClauseProver prover){
+        this.query = query;
+        this.entailed = entailed;
+        this.elapsedNanos = elapsedNanos;
+        this.statistics = prover == null ? new ProverStatistics() : prover.getStatistics();
+        if(prover != null){
+            this.stopReason = entailed ? null : prover.getStopReason();
+        }
+    }
+    
+    /**
+     * Method to build the UNKNOWN result of a query that could not be searched
+     * @param query the query as asked
+     * @return the result, with StopReason.FAILED
+     */
+    public static QueryResult failed(String query){
+        QueryResult failedResult = new QueryResult(query, false, 0, null);
+        failedResult.stopReason = StopReason.FAILED;
+        return failedResult;
+    }
+    
+    /**
+     * Method to copy the result for an answer served from the QueryCache
+     * @param query the query as asked this time
+     * @param elapsedNanos the time taken to serve the answer, in nanoseconds
+     * @return the copy (with the statistics of the original search)
+     */
+    public QueryResult fromCache(String query, long elapsedNanos){
+        QueryResult cachedResult = new QueryResult(query, entailed, elapsedNanos, null);
+        cachedResult.statistics = statistics;
+        cachedResult.stopReason = stopReason;
+        cachedResult.cached = true;
+        return cachedResult;
+    }
+    
+    /**
+     * Method to check whether the answer was served from the QueryCache rather than searched for
+     * @return true iff the answer was cached
+     */
+    public boolean isCached(){
+        return cached;
+    }
+    
+    /**
+     * Getter method to retrieve the query as asked
+     * @return the query as asked
+     */
+    public String getQuery(){
+        return query;
+    }
+    
+    /**
+     * Method to check the answer to the query
+     * @return true iff the KB entails the query
+     */
+    public boolean isEntailed(){
+        return entailed;
+    }
+    
+    /**
+     * Method to check whether the search gave up before deciding the query (see getStopReason())
+     * @return true iff the answer is unknown (isEntailed() is then false)
+     */
+    public boolean isUnknown(){
+        return stopReason != null;
+    }
+    
+    /**
+     * Getter method to retrieve why the search gave up before deciding the query
+     * @return the reason, or null if the query was decided
+     */
+    public StopReason getStopReason(){
+        return stopReason;
+    }
+    
+    /**
+     * Getter method to retrieve the answer as printed
+     * @return TRUE, FALSE or UNKNOWN
+     */
+    public String getAnswer(){
+        return entailed ? "TRUE" : stopReason == null ? "FALSE" : "UNKNOWN";
+    }
+    
+    /**
+     * Getter method to retrieve the time taken to answer the query, in nanoseconds
+     * @return the time taken to answer the query, in nanoseconds
+     */
+    public long getElapsedNanos(){
+        return elapsedNanos;
+    }
+    
+    /**
+     * Getter method to retrieve the statistics of the search that answered the query
+     * @return the statistics (of the original search, for a cached answer)
+     */
+    public ProverStatistics getStatistics(){
+        return statistics;
+    }
+    
+    @Override
+    public String toString(){
+        return query + " -> " + getAnswer() + (stopReason == null ? "" : " (" + stopReason + ")");
+    }
+}
+
+/********************************************************************************
+ * The ProverSession class is the entry point for using the prover as a library:
+ * it owns a KnowledgeBase and the threads queries run on, with no static state,
+ * so one (warmed-up) JVM can host any number of independent sessions. Sentences
+ * are told, queries are asked (one at a time or concurrently with askAll()), and
+ * every answer comes with the statistics of its search. Close the session to
+ * release its threads
+ ********************************************************************************/
+class ProverSession implements AutoCloseable{
+    
+    /**
+     * A query whose search is running: when it was asked, the number of (reduced) KB clauses it is
+     * searched against, and the progress of its search
+     */
+    static class InFlightQuery{
+        private String query;
+        private long startNanos;
+        private int kbSize;
+        private SearchProgress progress;
+        
+        InFlightQuery(String query, long startNanos, int kbSize, SearchProgress progress){
+            this.query = query;
+            this.startNanos = startNanos;
+            this.kbSize = kbSize;
+            this.progress = progress;
+        }
+        
+        String getQuery(){
+            return query;
+        }
+        
+        long getElapsedNanos(){
+            return System.nanoTime() - startNanos;
+        }
+        
+        int getKbSize(){
+            return kbSize;
+        }
+        
+        SearchProgress getProgress(){
+            return progress;
+        }
+    }
+    
+    private KnowledgeBase knowledgeBase;
+    //Resource limits of the queries asked without a budget of their own
+    private QueryBudget budget;
+    //Pool running the resolutions of each given clause (null to resolve sequentially)
+    private ForkJoinPool resolutionPool;
+    //Threads running the queries of askAll()
+    private ExecutorService queryExecutor;
+    private AtomicLong queryCount = new AtomicLong();
+    private AtomicLong entailedCount = new AtomicLong();
+    private AtomicLong unknownCount = new AtomicLong();
+    //Searches that ran out of wall-clock or CPU time
+    private AtomicLong timeoutCount = new AtomicLong();
+    //Resolvents generated by the searches of the session, and time taken by all the answers
+    private AtomicLong generatedCount = new AtomicLong();
+    private AtomicLong answerNanos = new AtomicLong();
+    private long startNanos = System.nanoTime();
+    //Queries whose search is running, watched by the SessionMonitor
+    private Set<InFlightQuery> inFlightQueries = ConcurrentHashMap.newKeySet();
+    //Name of the session's MBean on the platform MBean server (null if it is not registered)
+    private ObjectName monitorName;
+    //Answers to recent queries, valid while the KB is unchanged
+    private QueryCache queryCache = new QueryCache(QueryCache.DEFAULT_CAPACITY);
+    //True to log the statistics line of every search at INFO rather than FINE
+    private boolean statisticsLogged;
+    
+    /**
+     * ProverSession constructor (sequential resolution, one query at a time)
+     */
+    public ProverSession(){
+        this(homework.TOTAL_RES_TIME, 1, 1);
+    }
+    
+    /**
+     * ProverSession constructor
+     * @param timeLimit the time limit of each query, in milliseconds
+     * @param parallelism the number of threads resolving each query in parallel (1 resolves sequentially)
+     * @param queryThreads the number of queries askAll() answers concurrently
+     */
+    public ProverSession(long timeLimit, int parallelism, int queryThreads){
+        this(new KnowledgeBase(), timeLimit, parallelism, queryThreads);
+    }
+    
+    /**
+     * ProverSession constructor
+     * @param knowledgeBase the knowledge base to start from (e.g. loaded from a KBSnapshot)
+     * @param timeLimit the time limit of each query, in milliseconds
+     * @param parallelism the number of threads resolving each query in parallel (1 resolves sequentially)
+     * @param queryThreads the number of queries askAll() answers concurrently
+     */
+    public ProverSession(KnowledgeBase knowledgeBase, long timeLimit, int parallelism, int queryThreads){
+        this(knowledgeBase, new QueryBudget(timeLimit), parallelism, queryThreads);
+    }
+    
+    /**
+     * ProverSession constructor
+     * @param knowledgeBase the knowledge base to start from (e.g. loaded from a KBSnapshot)
+     * @param budget the resource limits of each query
+     * @param parallelism the number of threads resolving each query in parallel (1 resolves sequentially)
+     * @param queryThreads the number of queries askAll() answers concurrently
+     */
+    public ProverSession(KnowledgeBase knowledgeBase, QueryBudget budget, int parallelism, int queryThreads){
+        this.knowledgeBase = knowledgeBase;
+        this.budget = budget;
+        this.resolutionPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.queryExecutor = Executors.newFixedThreadPool(Math.max(1, queryThreads));
+    }
+    
+    /**
+     * Getter method to retrieve the knowledge base of the session
+     * @return the knowledge base
+     */
+    public KnowledgeBase getKnowledgeBase(){
+        return knowledgeBase;
+    }
+    
+    /**
+     * Method to tell the knowledge base a sentence
+     * @param sentence the sentence (e.g. ~A(x,y) | B(x))
+     * @return true iff the KB did not hold the clause yet
+     */
+    public boolean tell(String sentence){
+        return knowledgeBase.tell(sentence);
+    }
+    
+    /**
+     * Method to ask whether the knowledge base entails a query (refuting KB ^ ~query), within the
+     * budget of the session
+     * @param query the query (e.g. A(Bob,Alice))
+     * @return the answer and the statistics of the search
+     */
+    public QueryResult ask(String query){
+        return ask(query, budget, new CancellationToken());
+    }
+    
+    /**
+     * Method to ask whether the knowledge base entails a query (refuting KB ^ ~query). The answer is
+     * UNKNOWN if the search exceeds the budget or the token is cancelled (from any thread) first
+     * Only queries asked within the budget of the session share the QueryCache
+     * @param query the query (e.g. A(Bob,Alice))
+     * @param queryBudget the resource limits of the search
+     * @param cancellationToken the token to stop the search with
+     * @return the answer and the statistics of the search
+     */
+    public QueryResult ask(String query, QueryBudget queryBudget, CancellationToken cancellationToken){
+        QueryEvent queryEvent = new QueryEvent();
+        queryEvent.begin();
+        long startTime = System.nanoTime();
+        Clause negatedQuery = knowledgeBase.parseNegatedQuery(query);
+        long version = knowledgeBase.getVersion();
+        //Variables are clause-local, so the (already reduced and indexed) KB clauses and the lemmas are shared as they are
+        ReducedClauseSet reducedClauses = knowledgeBase.getReducedClauseSet();
+        LemmaStore lemmaStore = knowledgeBase.getLemmaStore();
+        //Read before the lemmas: should they change in between, the answer is only cached under an older generation
+        long lemmaGeneration = lemmaStore.getGeneration();
+        //An UNKNOWN answer only holds for the budget it was searched with
+        boolean cacheable = queryBudget == budget;
+        QueryResult cachedResult = cacheable ? queryCache.get(version, lemmaGeneration, negatedQuery) : null;
+        if(cachedResult != null){
+            QueryResult result = cachedResult.fromCache(query, System.nanoTime() - startTime);
+            countAnswer(result);
+            commitQueryEvent(queryEvent, result, reducedClauses.size(), version);
+            return result;
+        }
+        GivenClauseProver prover = new GivenClauseProver(queryBudget, resolutionPool, cancellationToken);
+        InFlightQuery inFlightQuery = new InFlightQuery(query, startTime, reducedClauses.size(), prover.getProgress());
+        inFlightQueries.add(inFlightQuery);
+        boolean entailed;
         try {
-            //Read the input file containing the input resolution problem in the current directory
-            File InputFile = new File("input.txt");
-            Scanner inputReader = new Scanner(InputFile);
-            //Stores the next int as the subsequent number of queries to ASK the KB
-            int numQueries = inputReader.nextInt();
-            //Consume line and store the querie(s)
-            inputReader.nextLine();
-            String[] negatedQueryList = new String[numQueries];
-            //Fill queryList array with queries from problem definition after negating them
-            for(int i = 0; i < numQueries; i++){
-                negatedQueryList[i] = negateQuery(inputReader.nextLine());
+            entailed = prover.prove(negatedQuery, reducedClauses, lemmaStore.getLemmas());
+        } finally {
+            inFlightQueries.remove(inFlightQuery);
+        }
+        lemmaStore.addAll(prover.getLemmaCandidates(LemmaStore.MAX_LEMMA_SIZE, LemmaStore.DEFAULT_CAPACITY));
+        QueryResult result = new QueryResult(query, entailed, System.nanoTime() - startTime, prover);
+        countAnswer(result);
+        //UNKNOWN is an expected answer under a budget (it is counted in the statistics of the session), not an event worth INFO
+        if(result.isUnknown()){
+            Logger.getLogger(homework.class.getName()).log(Level.FINE, "Query {0} gave up: {1}", new Object[]{query, result.getStopReason()});
+        }
+        //Only cache the answer if the KB did not change while the clauses were read, and if the query was decided
+        //or gave up on a deterministic limit (a time limit may well be met once the machine is less loaded);
+        //such an UNKNOWN answer is only served again while the lemmas are those the search started from
+        if(cacheable && knowledgeBase.getVersion() == version && (!result.isUnknown() || result.getStopReason().isDeterministic())){
+            queryCache.put(version, lemmaGeneration, negatedQuery, result);
+        }
+        Logger.getLogger(homework.class.getName()).log(statisticsLogged ? Level.INFO : Level.FINE, "{0}: {1}",
+                new Object[]{query, result.getStatistics()});
+        commitQueryEvent(queryEvent, result, reducedClauses.size(), version);
+        return result;
+    }
+    
+    /**
+     * Method to end the JFR event of a query and commit it if the recording keeps it
+     * @param queryEvent the event, begun when the query was asked
+     * @param result the answer
+     * @param kbSize the number of reduced clauses the query was searched against
+     * @param version the version of the KB the query was searched against
+     */
+    private static void commitQueryEvent(QueryEvent queryEvent, QueryResult result, int kbSize, long version){
+        queryEvent.end();
+        if(queryEvent.shouldCommit()){
+            queryEvent.query = result.getQuery();
+            queryEvent.kbSize = kbSize;
+            queryEvent.kbVersion = version;
+            queryEvent.answer = result.getAnswer();
+            queryEvent.stopReason = result.getStopReason() == null ? null : result.getStopReason().name();
+            queryEvent.cached = result.isCached();
+            queryEvent.givenClauses = result.getStatistics().getGivenClauseCount();
+            queryEvent.generated = result.getStatistics().getGeneratedCount();
+            queryEvent.peakRetained = result.getStatistics().getPeakRetainedCount();
+            queryEvent.commit();
+        }
+    }
+    
+    /**
+     * Method to log the statistics line (see ProverStatistics.toSummaryLine()) of every search at INFO,
+     * rather than at FINE
+     * @param statisticsLogged true to log the statistics of every search
+     */
+    public void setStatisticsLogged(boolean statisticsLogged){
+        this.statisticsLogged = statisticsLogged;
+    }
+    
+    /**
+     * Method to count an answer in the statistics of the session
+     * @param result the answer
+     */
+    private void countAnswer(QueryResult result){
+        queryCount.incrementAndGet();
+        answerNanos.addAndGet(result.getElapsedNanos());
+        if(result.isEntailed()){
+            entailedCount.incrementAndGet();
+        }
+        else if(result.isUnknown()){
+            unknownCount.incrementAndGet();
+        }
+        //A cached answer did not search again
+        if(!result.isCached()){
+            generatedCount.addAndGet(result.getStatistics().getGeneratedCount());
+            if(result.getStopReason() == StopReason.WALL_TIME || result.getStopReason() == StopReason.CPU_TIME){
+                timeoutCount.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Method to ask several queries concurrently
+     * @param queries the queries
+     * @return the results, in the order of the queries (a query that failed is logged and answered UNKNOWN, see StopReason.FAILED)
+     */
+    public List<QueryResult> askAll(List<String> queries){
+        ArrayList<Future<QueryResult>> futureResults = new ArrayList<>();
+        for (String query : queries) {
+            futureResults.add(queryExecutor.submit(() -> ask(query)));
+        }
+        ArrayList<QueryResult> results = new ArrayList<>();
+        for (int i = 0; i < futureResults.size(); i++) {
+            try {
+                results.add(futureResults.get(i).get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                Logger.getLogger(homework.class.getName()).log(Level.SEVERE, null, ex);
+                results.add(QueryResult.failed(queries.get(i)));
+            } catch (ExecutionException ex) {
+                Logger.getLogger(homework.class.getName()).log(Level.SEVERE, null, ex);
+                results.add(QueryResult.failed(queries.get(i)));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Getter method to retrieve the answer cache of the session (counters, capacity)
+     * @return the query cache
+     */
+    public QueryCache getQueryCache(){
+        return queryCache;
+    }
+    
+    /**
+     * Getter method to retrieve the number of queries answered by the session
+     * @return the number of queries
+     */
+    public long getQueryCount(){
+        return queryCount.get();
+    }
+    
+    /**
+     * Getter method to retrieve the number of queries answered TRUE by the session
+     * @return the number of entailed queries
+     */
+    public long getEntailedCount(){
+        return entailedCount.get();
+    }
+    
+    /**
+     * Getter method to retrieve the number of queries answered UNKNOWN by the session
+     * @return the number of queries whose search gave up
+     */
+    public long getUnknownCount(){
+        return unknownCount.get();
+    }
+    
+    /**
+     * Getter method to retrieve the resource limits of the queries asked without a budget of their own
+     * @return the budget of the session
+     */
+    public QueryBudget getBudget(){
+        return budget;
+    }
+    
+    /**
+     * Getter method to retrieve the number of searches of the session that ran out of wall-clock or CPU time
+     * @return the number of searches that timed out
+     */
+    public long getTimeoutCount(){
+        return timeoutCount.get();
+    }
+    
+    /**
+     * Getter method to retrieve the number of resolvents generated by the (finished) searches of the session
+     * @return the number of resolvents generated
+     */
+    public long getGeneratedCount(){
+        return generatedCount.get();
+    }
+    
+    /**
+     * Getter method to retrieve the time taken by all the answers of the session, in nanoseconds
+     * @return the time taken by all the answers, in nanoseconds
+     */
+    public long getAnswerNanos(){
+        return answerNanos.get();
+    }
+    
+    /**
+     * Getter method to retrieve the time since the session was created, in nanoseconds
+     * @return the age of the session, in nanoseconds
+     */
+    public long getUptimeNanos(){
+        return System.nanoTime() - startNanos;
+    }
+    
+    /**
+     * Getter method to retrieve the queries whose search is running
+     * @return a copy of the queries in flight
+     */
+    public List<InFlightQuery> getInFlightQueries(){
+        return new ArrayList<>(inFlightQueries);
+    }
+    
+    /**
+     * Method to publish the session on the platform MBean server (see SessionMonitor), as
+     * homework:type=ProverSession,name=NAME, until the session is closed. Registering again
+     * (e.g. under another name) replaces the earlier registration
+     * @param name the name of the session
+     * @throws JMException if the MBean cannot be registered (e.g. the name is taken)
+     */
+    public synchronized void registerMonitor(String name) throws JMException{
+        ObjectName objectName = new ObjectName("homework:type=ProverSession,name=" + name);
+        unregisterMonitor();
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(new SessionMonitor(this),
+                homework.SessionMonitorMBean.class), objectName);
+        monitorName = objectName;
+    }
+    
+    /**
+     * Method to remove the session from the platform MBean server, if it is registered
+     */
+    public synchronized void unregisterMonitor(){
+        if(monitorName != null){
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(monitorName);
+            } catch (JMException ex) {
+                Logger.getLogger(homework.class.getName()).log(Level.WARNING, null, ex);
             }
-            //Stores the next int as the subsequent number of sentences to tell the KB
-            int numSentences = inputReader.nextInt();
-            //Consume line and store the sentence(s)
-            inputReader.nextLine();
-            String[] sentenceArray = new String[numSentences];
-            //Fill sentenceList array with sentences from problem definition 
-            for(int i = 0; i < numSentences; i++){
-                sentenceArray[i] = inputReader.nextLine();
-            }
-            //Parse each sentence, apply regex patterns, create instances of classes as required
-            for(int sentenceNumber = 0; sentenceNumber < sentenceArray.length; sentenceNumber++){
-                String sentence = sentenceArray[sentenceNumber];
-                String sentenceNoSpaces = sentence.replaceAll("\\s+", "");
-                //Split sentences by "OR" delimiter
-                String[] delimiterSplitSentences = sentenceNoSpaces.split("\\|");
-                //Instantiate HashSet to store each sentence as a Clause
-                Clause newClause = null;
-                LinkedHashSet<Literal> literalSet = new LinkedHashSet<>();
-                //Use Regex to analyze each literal of the split sentence
-                for(int j = 0; j < delimiterSplitSentences.length; j++){
-                    String currentLiteral = delimiterSplitSentences[j];
-                    boolean literalSign = currentLiteral.charAt(0) != '~';
-                    //Instantiate arraylist to store parameters of literal
-                    ArrayList<Term> currentParameters = new ArrayList<>();
-                    //ArrayList to store the atomic elements from each delimited Literal
-                    ArrayList<String> atomicElementsArray = new ArrayList<>();
-                    //Pattern Matcher
-                    patternMatcher = regexPattern.matcher(currentLiteral);
-                    while(patternMatcher.find()){
-                        String atomicItem = currentLiteral.substring(patternMatcher.start(),patternMatcher.end());
-                        atomicElementsArray.add(atomicItem);
+            monitorName = null;
+        }
+    }
+    
+    @Override
+    public void close(){
+        unregisterMonitor();
+        queryExecutor.shutdownNow();
+        if(resolutionPool != null){
+            resolutionPool.shutdownNow();
+        }
+    }
+}
+
+/********************************************************************************
+ * The SessionMonitor class is the JMX view of a ProverSession (see
+ * ProverSession.registerMonitor() and homework.SessionMonitorMBean), read by
+ * monitoring tools without attaching a profiler: the queries in flight with
+ * their elapsed time, KB size and search progress (published once per round),
+ * the throughput of the session since it was created, the cache hit rate and
+ * the number of UNKNOWN answers and timeouts
+ ********************************************************************************/
+class SessionMonitor implements homework.SessionMonitorMBean{
+    
+    private ProverSession session;
+    
+    /**
+     * SessionMonitor constructor
+     * @param session the session to watch
+     */
+    public SessionMonitor(ProverSession session){
+        this.session = session;
+    }
+    
+    @Override
+    public String[] getInFlightQueries(){
+        List<ProverSession.InFlightQuery> queries = session.getInFlightQueries();
+        String[] lines = new String[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            ProverSession.InFlightQuery query = queries.get(i);
+            SearchProgress progress = query.getProgress();
+            lines[i] = String.format("%s elapsedMs=%d kbClauses=%d rounds=%d kept=%d resolvents=%d", query.getQuery(),
+                    query.getElapsedNanos() / 1000000, query.getKbSize(), progress.getRoundCount(), progress.getRetainedCount(),
+                    progress.getGeneratedCount());
+        }
+        return lines;
+    }
+    
+    @Override
+    public int getInFlightCount(){
+        return session.getInFlightQueries().size();
+    }
+    
+    @Override
+    public long getLongestInFlightMillis(){
+        long longestNanos = 0;
+        for (ProverSession.InFlightQuery query : session.getInFlightQueries()) {
+            longestNanos = Math.max(longestNanos, query.getElapsedNanos());
+        }
+        return longestNanos / 1000000;
+    }
+    
+    @Override
+    public int getKbClauses(){
+        return session.getKnowledgeBase().size();
+    }
+    
+    @Override
+    public long getKbVersion(){
+        return session.getKnowledgeBase().getVersion();
+    }
+    
+    @Override
+    public long getQueryCount(){
+        return session.getQueryCount();
+    }
+    
+    @Override
+    public long getEntailedCount(){
+        return session.getEntailedCount();
+    }
+    
+    @Override
+    public long getUnknownCount(){
+        return session.getUnknownCount();
+    }
+    
+    @Override
+    public long getTimeoutCount(){
+        return session.getTimeoutCount();
+    }
+    
+    @Override
+    public double getQueriesPerSecond(){
+        return session.getQueryCount() / (session.getUptimeNanos() / 1e9);
+    }
+    
+    @Override
+    public double getResolventsPerSecond(){
+        return session.getGeneratedCount() / (session.getUptimeNanos() / 1e9);
+    }
+    
+    @Override
+    public double getAverageQueryMillis(){
+        long queryCount = session.getQueryCount();
+        return queryCount == 0 ? 0 : session.getAnswerNanos() / 1e6 / queryCount;
+    }
+    
+    @Override
+    public long getCacheHitCount(){
+        return session.getQueryCache().getHitCount();
+    }
+    
+    @Override
+    public long getCacheMissCount(){
+        return session.getQueryCache().getMissCount();
+    }
+    
+    @Override
+    public double getCacheHitRate(){
+        long hitCount = session.getQueryCache().getHitCount();
+        long lookupCount = hitCount + session.getQueryCache().getMissCount();
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+}
+
+/********************************************************************************
+ * The ProverDaemon class keeps a ProverSession alive and serves a line protocol,
+ * on stdin/stdout or on a local (loopback) socket, one request per line:
+ *   TELL <sentence>  ->  OK (or DUPLICATE if the KB already holds the clause)
+ *   ASK <query>      ->  TRUE, FALSE or UNKNOWN <reason> (see StopReason)
+ *   STATS            ->  CLAUSES <n> REDUCED <n> VERSION <n> QUERIES <n> ENTAILED <n>
+ *                        UNKNOWN <n> CACHE_HITS <n> CACHE_MISSES <n> LEMMAS <n>
+ *   QUIT             ->  BYE (and the connection is closed)
+ * Anything else, or a sentence that cannot be parsed, gets ERROR <message>; a
+ * request that fails inside the prover gets ERROR internal <exception>
+ * The session is also published over JMX as homework:type=ProverSession,name=daemon
+ * (see SessionMonitor)
+ * (run with: java [-Dhomework.snapshot=FILE] homework --daemon [port])
+ ********************************************************************************/
+class ProverDaemon{
+    
+    private ProverSession session;
+    
+    /**
+     * ProverDaemon constructor
+     * @param session the session holding the KB told by every client
+     */
+    public ProverDaemon(ProverSession session){
+        this.session = session;
+    }
+    
+    /**
+     * Method to serve requests on stdin/stdout until QUIT or the end of the input
+     * @throws IOException if stdin cannot be read
+     */
+    public void serveStandardStreams() throws IOException{
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true);
+        serve(in, out);
+    }
+    
+    /**
+     * Method to serve the clients connecting to a loopback port, each on its own thread (never returns)
+     * @param port the port to listen on
+     * @throws IOException if the port cannot be listened on
+     */
+    public void serveSocket(int port) throws IOException{
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            Logger.getLogger(homework.class.getName()).log(Level.INFO, "Listening on {0}", serverSocket.getLocalSocketAddress());
+            while(true){
+                Socket clientSocket = serverSocket.accept();
+                Thread clientThread = new Thread(() -> serveClient(clientSocket), "prover-client-" + clientSocket.getPort());
+                clientThread.setDaemon(true);
+                clientThread.start();
+            }
+        }
+    }
+    
+    /**
+     * Method to serve a connected client until QUIT or the connection closes
+     * @param clientSocket the client's socket
+     */
+    private void serveClient(Socket clientSocket){
+        try (Socket socket = clientSocket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+            serve(in, out);
+        } catch (IOException ex) {
+            Logger.getLogger(homework.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+    
+    /**
+     * Method to answer the requests read from a stream, one line each, until QUIT or the end of the stream
+     * @param in the requests
+     * @param out the responses
+     * @throws IOException if the requests cannot be read
+     */
+    public void serve(BufferedReader in, PrintWriter out) throws IOException{
+        String line;
+        while((line = in.readLine()) != null){
+            line = line.trim();
+            if(line.isEmpty()){
+                continue;
+            }
+            String response = handle(line);
+            out.println(response == null ? "BYE" : response);
+            if(response == null){
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Method to answer a single request
+     * @param request the request line
+     * @return the response line (null for QUIT)
+     */
+    String handle(String request){
+        int separator = request.indexOf(' ');
+        String command = (separator < 0 ? request : request.substring(0, separator)).toUpperCase();
+        String argument = separator < 0 ? "" : request.substring(separator + 1).trim();
+        try {
+            switch(command){
+                case "TELL":
+                    if(argument.isEmpty()){
+                        return "ERROR missing sentence";
                     }
-                    //Initialize tuple and predicate
-                    Tuple currentTuple = null;
-                    Constant predicate = null;
-                    //Loop through atomic elements Array of current literal and generate appropriate classes
-                    for(int k = 0; k < atomicElementsArray.size(); k++){
-                        //Get the first item
-                        String currentAtom = atomicElementsArray.get(k);
-                        //First element is always a functor/predicate
-                        if(k == 0){
-                            predicate = new Constant(currentAtom);
-                        }
-                        else{
-                            if(Character.isUpperCase(currentAtom.charAt(0))){
-                                Constant constant = new Constant(currentAtom);
-                                currentParameters.add(constant);
-                            }
-                            else{
-                                //Add the index to the variable name to ensure standardization of variables
-                                Variable variable = new Variable(currentAtom);
-                                currentParameters.add(variable);
-                            }
-                        }
+                    return session.tell(argument) ? "OK" : "DUPLICATE";
+                case "ASK":
+                    if(argument.isEmpty()){
+                        return "ERROR missing query";
                     }
-                    //Create a tuple with the parsed information
-                    currentTuple = new Tuple(predicate, currentParameters);
-                    //Generate new Literal and add it to the Clause Set
-                    Literal newLiteral = new Literal(literalSign, currentTuple);
-                    //Add new Literal to Clause Set
-                    literalSet.add(newLiteral);
+                    QueryResult result = session.ask(argument);
+                    return result.isUnknown() ? "UNKNOWN " + result.getStopReason() : result.getAnswer();
+                case "STATS":
+                    KnowledgeBase knowledgeBase = session.getKnowledgeBase();
+                    return "CLAUSES " + knowledgeBase.size() + " REDUCED " + knowledgeBase.getReducedClauses().size()
+                            + " VERSION " + knowledgeBase.getVersion() + " QUERIES " + session.getQueryCount()
+                            + " ENTAILED " + session.getEntailedCount() + " UNKNOWN " + session.getUnknownCount() + " CACHE_HITS " + session.getQueryCache().getHitCount()
+                            + " CACHE_MISSES " + session.getQueryCache().getMissCount()
+                            + " LEMMAS " + knowledgeBase.getLemmaStore().size();
+                case "QUIT":
+                    return null;
+                default:
+                    return "ERROR unknown command " + command;
+            }
+        } catch (SyntaxException ex) {
+            //A malformed sentence or query must not take the daemon down
+            Logger.getLogger(homework.class.getName()).log(Level.FINE, null, ex);
+            return "ERROR cannot parse " + argument + ": " + ex.getMessage();
+        } catch (RuntimeException ex) {
+            //Neither must a failure of the prover, which is not the client's fault
+            Logger.getLogger(homework.class.getName()).log(Level.SEVERE, "Request failed: " + request, ex);
+            return "ERROR internal " + ex;
+        }
+    }
+}
+
+/********************************************************************************
+ * The homework class is the "main" class of the homework (the only public class)
+ * It contains the main function
+ ********************************************************************************/
+public class homework {
+    static final long TOTAL_RES_TIME = 20000;
+    //Further limits of each query, 0 for none (-Dhomework.cpuTime=MS, -Dhomework.maxGenerated=N,
+    //-Dhomework.maxRetained=N, -Dhomework.maxHeap=BYTES held by the clauses each search keeps)
+    private static final long CPU_TIME = Long.getLong("homework.cpuTime", 0);
+    private static final long MAX_GENERATED = Long.getLong("homework.maxGenerated", 0);
+    private static final int MAX_RETAINED = Integer.getInteger("homework.maxRetained", 0);
+    private static final long MAX_HEAP = Long.getLong("homework.maxHeap", 0);
+    //Log the statistics line of every search (-Dhomework.stats=true)
+    private static final boolean STATS = Boolean.getBoolean("homework.stats");
+    //Number of threads resolving in parallel (-Dhomework.parallelism=N; 1 resolves sequentially)
+    private static final int PARALLELISM = Integer.getInteger("homework.parallelism", 1);
+    //Number of queries answered concurrently (-Dhomework.queryThreads=N)
+    private static final int QUERY_THREADS = Integer.getInteger("homework.queryThreads", Runtime.getRuntime().availableProcessors());
+    //Number of threads parsing big inputs (-Dhomework.parseThreads=N)
+    private static final int PARSE_THREADS = Integer.getInteger("homework.parseThreads", Runtime.getRuntime().availableProcessors());
+    private static final String NOT_ENTAILED = "FALSE";
+    private static final String ENTAILED = "TRUE";
+    //Shared comparator used to sort resolvent literals
+    private static final LiteralComparator LITERAL_ORDER = new LiteralComparator();
+    
+    /**
+     * The management interface of SessionMonitor (a standard MBean interface must be public, and
+     * homework is the only public class)
+     */
+    public interface SessionMonitorMBean{
+        
+        /**
+         * @return a line per query in flight: the query, its elapsed time, the number of KB clauses it is
+         * searched against, and the rounds, kept clauses and resolvents of its search so far
+         */
+        String[] getInFlightQueries();
+        
+        /**
+         * @return the number of queries in flight
+         */
+        int getInFlightCount();
+        
+        /**
+         * @return the elapsed time of the oldest query in flight, in milliseconds (0 if there is none)
+         */
+        long getLongestInFlightMillis();
+        
+        /**
+         * @return the number of clauses of the KB
+         */
+        int getKbClauses();
+        
+        /**
+         * @return the version of the KB (incremented by every TELL that adds a clause)
+         */
+        long getKbVersion();
+        
+        /**
+         * @return the number of queries answered
+         */
+        long getQueryCount();
+        
+        /**
+         * @return the number of queries answered TRUE
+         */
+        long getEntailedCount();
+        
+        /**
+         * @return the number of queries answered UNKNOWN (see StopReason)
+         */
+        long getUnknownCount();
+        
+        /**
+         * @return the number of searches that ran out of wall-clock or CPU time
+         */
+        long getTimeoutCount();
+        
+        /**
+         * @return the queries answered per second since the session was created
+         */
+        double getQueriesPerSecond();
+        
+        /**
+         * @return the resolvents generated per second since the session was created
+         */
+        double getResolventsPerSecond();
+        
+        /**
+         * @return the average time taken to answer a query, in milliseconds
+         */
+        double getAverageQueryMillis();
+        
+        /**
+         * @return the number of answers served from the QueryCache
+         */
+        long getCacheHitCount();
+        
+        /**
+         * @return the number of queries searched for because the QueryCache had no answer
+         */
+        long getCacheMissCount();
+        
+        /**
+         * @return the fraction of the queries served from the QueryCache (0 if none was asked)
+         */
+        double getCacheHitRate();
+    }
+    
+    /**
+     * negateQuery negates the input query (removes or adds '~' as required)
+     * @param query the input query (from input.txt)
+     * @return the negated query
+     */
+    public static String negateQuery(String query){
+        String negatedQuery = "";
+        if(query.charAt(0) == '~'){
+            negatedQuery = query.substring(1);
+        }
+        else{
+            negatedQuery = '~' + query;
+        }
+        return negatedQuery;
+    }
+    
+    /**
+     * Resolve takes in two Clauses and generates a HashSet of resulting knowledge as Clauses
+     * @param outerClause Clause to be resolved
+     * @param innerClause Clause to be resolved 
+     * @return the Set of all new knowledge acquired through the two given clauses
+     */
+    public static LinkedHashSet<Clause> resolve(Clause outerClause, Clause innerClause){
+        //Instantiate the resolvents set
+        LinkedHashSet<Clause> resolventsSet = new LinkedHashSet<>();
+        ResolutionWorkspace workspace = new ResolutionWorkspace();
+        //We must resolve positive literals of the outerClause with negative of the innerClause
+        for (Literal outerPosLiteral : outerClause.getPositiveTerms()) {
+            for (Literal innerNegLiteral : innerClause.getNegativeTerms()) {
+                Clause resolventClause = resolveLiterals(workspace, outerClause, outerPosLiteral, innerClause, innerNegLiteral);
+                if(resolventClause != null){
+                    resolventsSet.add(resolventClause);
                 }
-                //Generate new clause and add it to the KB
-                newClause = new Clause(literalSet);
-                knowledgeBase.add(newClause);
-            }
-            /***********************MAIN LOOP (ADD QUERY AND RESOLVE)***********************/
-            for(int queryNumber = 0; queryNumber < negatedQueryList.length; queryNumber++){
-                //Index used to standardize variables in KB
-                currentIndex = 1;
-                //Create a new KB
-                LinkedHashSet<Clause> newKB = new LinkedHashSet<>();
-                //Iterator for the current knowledge base
-                Iterator kbIterator = knowledgeBase.iterator();
-                
-                /***********************ADD (~ALPHA) TO THE NEW KB***********************/
-                //Add the negated query to the new KB (no need to standardize)
-                String currentQuery = negatedQueryList[queryNumber];
-                boolean currQuerySign = currentQuery.charAt(0) != '~';
-                //Pattern Matcher
-                patternMatcher = regexPattern.matcher(currentQuery);
-                //find next item: Always a predicate (as specified in hw prompt)
-                patternMatcher.find();
-                Constant queryPredicate = new Constant(currentQuery.substring(patternMatcher.start(),patternMatcher.end()));
-                //find next item: Always a single/list constant (as specified in hw prompt)
-                ArrayList<Term> queryConstantList = new ArrayList<>();
-                while(patternMatcher.find()){
-                    Constant queryConstant = new Constant(currentQuery.substring(patternMatcher.start(),patternMatcher.end()));
-                    queryConstantList.add(queryConstant);
+            }
+        }
+        //We must also resolve positive literals of the innerClause with negative of the outerClause
+        for (Literal outerNegLiteral : outerClause.getNegativeTerms()) {
+            for (Literal innerPosLiteral : innerClause.getPositiveTerms()) {
+                Clause resolventClause = resolveLiterals(workspace, outerClause, outerNegLiteral, innerClause, innerPosLiteral);
+                if(resolventClause != null){
+                    resolventsSet.add(resolventClause);
                 }
-                //Create the Tuple, Literal, and add 
-                Tuple queryTuple = new Tuple(queryPredicate, queryConstantList);
-                Literal queryLiteral = new Literal(currQuerySign, queryTuple);
-                LinkedHashSet<Literal> queryLiteralSet = new LinkedHashSet<>();
-                queryLiteralSet.add(queryLiteral);
-                Clause queryClause = new Clause(queryLiteralSet);
-                //Add the query clause to the new KB
-                newKB.add(queryClause);
-                /***********************GENERATE KB AND STANDARDIZE ON THE GO***********************/
-                //Iterate over the current knowledge base, standardize, add to new one.
-                while(kbIterator.hasNext()){
-                    Clause currentClause = (Clause) kbIterator.next();
-                    LinkedHashSet<Literal> refLiteralSet = currentClause.getLiterals();
-                    LinkedHashSet<Literal> newLiteralSet = new LinkedHashSet<>();
-                    //Iterator to iterate over each clause in the KB
-                    Iterator clauseIterator = refLiteralSet.iterator();
-                    while(clauseIterator.hasNext()){
-                        //Get the current Literal and its sign
-                        Literal currLiteral = (Literal) clauseIterator.next();
-                        boolean currSign = currLiteral.getSign();
-                        //Get the current Tuple within the Literal Object
-                        Tuple currTuple = (Tuple) currLiteral.getLiteral();
-                        String newPredicate = currTuple.getFunctorName();
-                        //Create a new ArrayList to store the copied and standardized parameters
-                        ArrayList<Term> newParameters = new ArrayList<>();
-                        //Loop over Tuple's parameters
-                        for (int i = 0; i < currTuple.getNumParameters(); i++) {
-                            //Get the name of the current parameter Term
-                            String termValue = currTuple.getParameter(i).getTermValue();
-                            //Create a constant if the Parameter starts with an uppercase letter
-                            if(Character.isUpperCase(termValue.charAt(0))){
-                                Constant newConstant = new Constant(termValue);
-                                newParameters.add(newConstant);  
-                            }
-                            //Otherwise, create a variable and add the index (sentence number) for standardizing
-                            else{
-                                //Add the index to the variable name to ensure standardization of variables
-                                Variable variable = new Variable(termValue + currentIndex);
-                                newParameters.add(variable);
-                            }
-                        }
-                        //Create a new literal with the current sign and a new tuple containing a new predicate and the new parameters
-                        Literal newLiteral = new Literal(currSign, new Tuple(new Constant(newPredicate), newParameters));
-                        //Add the new literal to the set
-                        newLiteralSet.add(newLiteral);
-                    }
-                    //Create a new clause with the new literal set and add the Clause to the KB
-                    Clause newClause = new Clause(newLiteralSet);
-                    newKB.add(newClause);
-                    //Increment the index (used for variable standardization)
-                    currentIndex++;
+            }
+        }
+        return resolventsSet;
+    }
+    
+    /**
+     * resolveLiterals resolves two Clauses upon a given pair of complementary literals
+     * @param outerClause Clause to be resolved
+     * @param outerLiteral the literal of outerClause to resolve upon
+     * @param innerClause Clause to be resolved
+     * @param innerLiteral the literal of innerClause to resolve upon
+     * @return the resolvent, or null if the two literals do not unify
+     */
+    public static Clause resolveLiterals(Clause outerClause, Literal outerLiteral, Clause innerClause, Literal innerLiteral){
+        return resolveLiterals(new ResolutionWorkspace(), outerClause, outerLiteral, innerClause, innerLiteral);
+    }
+    
+    /**
+     * resolveLiterals resolves two Clauses upon a given pair of complementary literals, using the
+     * scratch buffers of a workspace so that only the resolvent itself is allocated
+     * @param workspace the (per worker) scratch buffers
+     * @param outerClause Clause to be resolved
+     * @param outerLiteral the literal of outerClause to resolve upon
+     * @param innerClause Clause to be resolved
+     * @param innerLiteral the literal of innerClause to resolve upon
+     * @return the resolvent, or null if the two literals do not unify
+     */
+    public static Clause resolveLiterals(ResolutionWorkspace workspace, Clause outerClause, Literal outerLiteral, Clause innerClause, Literal innerLiteral){
+        //Reuse the workspace's substitution map for the unification attempt
+        SubstitutionMap resolveMap = workspace.getSubstitutionMap();
+        resolveMap.clear();
+        //Standardize the clauses apart by offset: the inner clause's variables follow the outer clause's
+        int innerOffset = outerClause.getNumVariables();
+        //if the attempted substitution is null, there is no resolvent
+        if(outerLiteral.getLiteral().unify(0, innerLiteral.getLiteral(), innerOffset, resolveMap) == null){
+            //Undo the bindings of the failed attempt through the trail
+            resolveMap.clear();
+            return null;
+        }
+        //Variables left unbound are renumbered into the resolvent as they are met
+        resolveMap.startRenaming();
+        ArrayList<Literal> resLiteralList = workspace.getLiteralBuffer();
+        resLiteralList.clear();
+        //Add all literals of both clauses to the buffer (except the unified ones), with their bindings replaced
+        for (Literal literal : outerClause.getLiterals()) {
+            if(literal != outerLiteral){
+                resLiteralList.add(literal.replaceVarBindings(0, resolveMap));
+            }
+        }
+        for (Literal literal : innerClause.getLiterals()) {
+            if(literal != innerLiteral){
+                resLiteralList.add(literal.replaceVarBindings(innerOffset, resolveMap));
+            }
+        }
+        resolveMap.clear();
+        //Sort the buffer and build the resolvent from it
+        resLiteralList.sort(LITERAL_ORDER);
+        return new Clause(new LinkedHashSet<>(resLiteralList));
+    }
+    
+    /**
+     * Creates the output file with the answers
+     * @param answersList the answer to the ASK question to the KB
+     */
+    public static void printOutFile(ArrayList<String> answersList){
+        PrintStream outputFileStream = null;
+        try {
+            outputFileStream = new PrintStream( new FileOutputStream("output.txt"));
+        } catch (FileNotFoundException ex) {
+            Logger.getLogger(homework.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        for(int i = 0; i < answersList.size(); i++){
+            outputFileStream.println(answersList.get(i));
+        }
+    }
+    
+    
+    public static void printKB(LinkedHashSet<Clause> knowledgeBase){
+        System.out.println("---------KB PRINTER---------");
+        ArrayList<Clause> clauseList = new ArrayList<>();
+        clauseList.addAll(knowledgeBase);
+        Collections.sort(clauseList);
+        LinkedHashSet<Clause> clausePrint = new LinkedHashSet<>();
+        clausePrint.addAll(clauseList);
+        
+        Iterator<Clause> kbIterator = clausePrint.iterator();
+        while(kbIterator.hasNext()){
+            System.out.println(kbIterator.next());
+        }
+    }
+    
+    
+    /**
+     * parseSentence parses a disjunction of literals from the input file into a Clause
+     * @param sentence the sentence (e.g. ~A(x,y) | B(x))
+     * @param symbols the symbol table to intern the names in
+     * @return the new Clause
+     */
+    public static Clause parseSentence(String sentence, SymbolTable symbols){
+        ByteBuffer sentenceBuffer = ByteBuffer.wrap(sentence.getBytes(StandardCharsets.US_ASCII));
+        Clause clause = new KBParser(symbols, sentenceBuffer, 0, sentenceBuffer.limit()).nextSentence();
+        if(clause == null){
+            throw new SyntaxException("empty sentence");
+        }
+        return clause;
+    }
+    
+    
+    /**
+     * parseQuery parses a (negated) query from the input file into a single-literal Clause
+     * @param query the query (e.g. ~A(Bob,Alice)), a literal over constants
+     * @param symbols the symbol table to intern the names in
+     * @return the new Clause
+     */
+    public static Clause parseQuery(String query, SymbolTable symbols){
+        //Same grammar as the sentences, so that a query can name anything the KB was told
+        ByteBuffer queryBuffer = ByteBuffer.wrap(query.getBytes(StandardCharsets.US_ASCII));
+        return new KBParser(symbols, queryBuffer, 0, queryBuffer.limit()).nextQuery();
+    }
+    
+    public static void main(String[] args) {
+        //Compile mode: parse a KB file (one sentence per line) into a binary snapshot
+        if(args.length == 3 && args[0].equals("--compile")){
+            try {
+                KnowledgeBase knowledgeBase = new KnowledgeBase();
+                knowledgeBase.tellFile(new File(args[1]).toPath(), PARSE_THREADS);
+                KBSnapshot.write(knowledgeBase, new File(args[2]).toPath());
+            } catch (IOException ex) {
+                Logger.getLogger(homework.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            return;
+        }
+        //Daemon mode: keep the session (and its KB) alive and answer TELL/ASK requests
+        //(starting from the snapshot given with -Dhomework.snapshot=FILE, if any)
+        if(args.length > 0 && args[0].equals("--daemon")){
+            String snapshotFile = System.getProperty("homework.snapshot");
+            try (ProverSession session = new ProverSession(snapshotFile == null ? new KnowledgeBase() : KBSnapshot.load(new File(snapshotFile).toPath()),
+                    new QueryBudget(TOTAL_RES_TIME, CPU_TIME, MAX_GENERATED, MAX_RETAINED, MAX_HEAP), PARALLELISM, QUERY_THREADS)) {
+                session.setStatisticsLogged(STATS);
+                try {
+                    session.registerMonitor("daemon");
+                } catch (JMException ex) {
+                    Logger.getLogger(homework.class.getName()).log(Level.WARNING, null, ex);
                 }
-                /***********************RUN RESOLUTION AND OUTPUT RESULTS***********************/
-                boolean resolutionAnswer = resolution(newKB);
-                if(resolutionAnswer){
+                ProverDaemon daemon = new ProverDaemon(session);
+                if(args.length > 1){
+                    daemon.serveSocket(Integer.parseInt(args[1]));
+                }
+                else{
+                    daemon.serveStandardStreams();
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(homework.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            return;
+        }
+        //Arraylist to store answers to different queries (i.e. TRUE, FALSE, TRUE, etc.)
+        ArrayList<String> answersList = new ArrayList<String>();
+        //Initialize the session (and its KB)
+        try (ProverSession session = new ProverSession(new KnowledgeBase(),
+                new QueryBudget(TOTAL_RES_TIME, CPU_TIME, MAX_GENERATED, MAX_RETAINED, MAX_HEAP), PARALLELISM, QUERY_THREADS)) {
+            session.setStatisticsLogged(STATS);
+            //Read (or map) the input file containing the input resolution problem in the current directory
+            ByteBuffer inputBuffer = KBParser.readFile(new File("input.txt").toPath());
+            KnowledgeBase knowledgeBase = session.getKnowledgeBase();
+            KBParser inputReader = new KBParser(knowledgeBase.getSymbols(), inputBuffer, 0, inputBuffer.limit());
+            //Stores the next int as the subsequent number of queries to ASK the KB (and consume the line)
+            int numQueries = inputReader.nextInt();
+            ArrayList<String> queryList = new ArrayList<>();
+            //Fill queryList with queries from problem definition (the session negates them)
+            for(int i = 0; i < numQueries; i++){
+                queryList.add(inputReader.nextLine());
+            }
+            //Stores the next int as the subsequent number of sentences to tell the KB (and consume the line)
+            int numSentences = inputReader.nextInt();
+            //Parse the sentences straight from the buffer (in parallel chunks if there are many) and tell them to the KB;
+            //only the numSentences lines are parsed, whatever follows them
+            int sentencesStart = inputReader.getPosition();
+            int sentencesEnd = inputReader.skipSentences(numSentences);
+            knowledgeBase.tellAll(KBParser.parseSentences(knowledgeBase.getSymbols(), inputBuffer, sentencesStart, sentencesEnd, PARSE_THREADS));
+            /***********************MAIN LOOP (ASK THE QUERIES, IN INPUT ORDER)***********************/
+            for (QueryResult result : session.askAll(queryList)) {
+                //The output format has no UNKNOWN: a query the search gave up on is answered FALSE (the reason is logged)
+                if(result.isEntailed()){
                     answersList.add(ENTAILED);
                     System.out.println(ENTAILED);
                 }
@@ -1341,7 +5853,7 @@ public class homework {
             printOutFile(answersList);
             
 
-        } catch (FileNotFoundException ex) {
+        } catch (IOException ex) {
             Logger.getLogger(homework.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
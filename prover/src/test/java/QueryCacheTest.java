@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/********************************************************************************
+ * The QueryCacheTest class checks which answers a ProverSession caches: decided
+ * answers and UNKNOWN answers of deterministic limits are served again, UNKNOWN
+ * answers of time limits are searched again (see StopReason.isDeterministic()),
+ * and so are UNKNOWN answers searched before the lemmas changed
+ ********************************************************************************/
+class QueryCacheTest{
+
+    //An unentailed query over a recursive rule, which resolution never saturates
+    private static final String[] CHAIN = {"Edge(NodeA,NodeB)", "Edge(NodeB,NodeC)", "~Edge(x,y) | Path(x,y)",
+        "~Path(x,y) | ~Path(y,z) | Path(x,z)"};
+    private static final String UNPROVABLE_QUERY = "Path(NodeC,NodeA)";
+    private static final String[] LONGER_CHAIN = {"Edge(NodeA,NodeB)", "Edge(NodeB,NodeC)", "Edge(NodeC,NodeD)", "~Edge(x,y) | Path(x,y)",
+        "~Path(x,y) | ~Path(y,z) | Path(x,z)"};
+
+    @Test
+    void timeLimitedAnswersAreNotCached(){
+        try (ProverSession session = new ProverSession(new KnowledgeBase(), new QueryBudget(50), 1, 1)) {
+            tellChain(session);
+            assertEquals(StopReason.WALL_TIME, session.ask(UNPROVABLE_QUERY).getStopReason());
+            assertFalse(session.ask(UNPROVABLE_QUERY).isCached());
+        }
+    }
+
+    @Test
+    void deterministicAnswersAreCached(){
+        try (ProverSession session = new ProverSession(new KnowledgeBase(), new QueryBudget(homework.TOTAL_RES_TIME, 0, 200, 0, 0), 1, 1)) {
+            tellChain(session);
+            //Each search may learn lemmas, with which the next one starts: the UNKNOWN answer is only served
+            //again once a search left the lemmas as they were
+            LemmaStore lemmaStore = session.getKnowledgeBase().getLemmaStore();
+            long lemmaGeneration;
+            int searchCount = 0;
+            do {
+                lemmaGeneration = lemmaStore.getGeneration();
+                assertEquals(StopReason.GENERATED_CLAUSES, session.ask(UNPROVABLE_QUERY).getStopReason());
+                searchCount++;
+            } while(lemmaStore.getGeneration() != lemmaGeneration && searchCount < 10);
+            assertEquals(lemmaGeneration, lemmaStore.getGeneration());
+            QueryResult cachedResult = session.ask(UNPROVABLE_QUERY);
+            assertTrue(cachedResult.isCached());
+            assertEquals(StopReason.GENERATED_CLAUSES, cachedResult.getStopReason());
+            assertTrue(session.ask("Path(NodeA,NodeC)").isEntailed());
+            assertTrue(session.ask("Path(NodeA,NodeC)").isCached());
+        }
+    }
+
+    @Test
+    void unknownAnswersAreSearchedAgainWithNewLemmas(){
+        try (ProverSession session = new ProverSession(new KnowledgeBase(), new QueryBudget(homework.TOTAL_RES_TIME, 0, 15, 0, 0), 1, 1)) {
+            for (String sentence : LONGER_CHAIN) {
+                session.tell(sentence);
+            }
+            assertEquals(StopReason.GENERATED_CLAUSES, session.ask("Path(NodeA,NodeD)").getStopReason());
+            //Searching Path(NodeB,NodeD) learns lemmas about the chain, with which Path(NodeA,NodeD) is decided
+            long lemmaGeneration = session.getKnowledgeBase().getLemmaStore().getGeneration();
+            assertTrue(session.ask("Path(NodeB,NodeD)").isEntailed());
+            assertTrue(session.getKnowledgeBase().getLemmaStore().getGeneration() > lemmaGeneration);
+            QueryResult result = session.ask("Path(NodeA,NodeD)");
+            assertFalse(result.isCached());
+            assertTrue(result.isEntailed());
+        }
+    }
+
+    /**
+     * Method to tell a session the chain KB
+     * @param session the session
+     */
+    private static void tellChain(ProverSession session){
+        for (String sentence : CHAIN) {
+            session.tell(sentence);
+        }
+    }
+}
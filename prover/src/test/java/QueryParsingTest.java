@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/********************************************************************************
+ * The QueryParsingTest class checks that queries are read with the same grammar
+ * as the told sentences (see KBParser): names may hold digits and underscores
+ * after their first letter, and a query naming them must find them in the KB.
+ * It also checks that only the declared number of sentences of an input is parsed,
+ * and that asking about names the KB has not seen leaves its SymbolTable as it was.
+ * A malformed query among several is answered UNKNOWN (see StopReason.FAILED)
+ ********************************************************************************/
+class QueryParsingTest{
+
+    @Test
+    void askFindsAlphanumericNames(){
+        try (ProverSession session = new ProverSession()) {
+            session.tell("P(C1)");
+            session.tell("~Knows(x,y) | Met(y,x)");
+            session.tell("Knows(Bob_2,Ann)");
+            assertTrue(session.ask("P(C1)").isEntailed());
+            assertTrue(session.ask("Met(Ann,Bob_2)").isEntailed());
+            assertFalse(session.ask("P(C2)").isEntailed());
+            assertFalse(session.ask("Met(Bob_2,Ann)").isEntailed());
+        }
+    }
+
+    @Test
+    void daemonAnswersAlphanumericNames(){
+        try (ProverSession session = new ProverSession()) {
+            ProverDaemon daemon = new ProverDaemon(session);
+            assertEquals("OK", daemon.handle("TELL Knows(Bob_2,Ann)"));
+            assertEquals("TRUE", daemon.handle("ASK Knows(Bob_2,Ann)"));
+            assertEquals("FALSE", daemon.handle("ASK ~Knows(Bob_2,Ann)"));
+        }
+    }
+
+    @Test
+    void queryIsParsedLikeASentence(){
+        SymbolTable symbols = new SymbolTable();
+        Clause told = homework.parseSentence("Knows(Bob_2,A1)", symbols);
+        Clause asked = homework.parseQuery(" Knows( Bob_2 , A1 ) ", symbols);
+        assertEquals(told, asked);
+        //Queries are ground: lowercase arguments are constants, not variables
+        assertEquals(0, homework.parseQuery("Knows(bob,ann)", symbols).getNumVariables());
+        assertThrows(IllegalArgumentException.class, () -> homework.parseQuery("Knows(Bob) | P(C1)", symbols));
+    }
+
+    @Test
+    void onlyTheDeclaredSentencesAreParsed(){
+        SymbolTable symbols = new SymbolTable();
+        ByteBuffer input = ByteBuffer.wrap("2\nP(A)\n\n~P(x) | Q(x)\nNot(A, sentence ((\n".getBytes(StandardCharsets.US_ASCII));
+        KBParser inputReader = new KBParser(symbols, input, 0, input.limit());
+        int numSentences = inputReader.nextInt();
+        int sentencesStart = inputReader.getPosition();
+        int sentencesEnd = inputReader.skipSentences(numSentences);
+        List<Clause> clauses = KBParser.parseSentences(symbols, input, sentencesStart, sentencesEnd, 1);
+        assertEquals(2, clauses.size());
+        //P, A and Q only: the trailing line is neither parsed nor interned
+        assertEquals(3, symbols.size());
+    }
+
+    @Test
+    void askDoesNotInternUnseenNames(){
+        try (ProverSession session = new ProverSession()) {
+            session.tell("P(x)");
+            session.tell("Knows(Bob,Ann)");
+            int symbolCount = session.getKnowledgeBase().getSymbols().size();
+            //P(x) unifies with a constant the KB has never seen
+            assertTrue(session.ask("P(Zed)").isEntailed());
+            assertFalse(session.ask("Likes(Bob,Ann)").isEntailed());
+            assertFalse(session.ask("Knows(Bob,Zed)").isEntailed());
+            assertTrue(session.ask("Knows(Bob,Ann)").isEntailed());
+            assertEquals(symbolCount, session.getKnowledgeBase().getSymbols().size());
+        }
+    }
+
+    @Test
+    void malformedQueryIsAnsweredUnknown(){
+        try (ProverSession session = new ProverSession()) {
+            session.tell("P(A)");
+            List<QueryResult> results = session.askAll(List.of("P(A)", "P(A", "P(B)"));
+            assertTrue(results.get(0).isEntailed());
+            assertTrue(results.get(1).isUnknown());
+            assertEquals(StopReason.FAILED, results.get(1).getStopReason());
+            assertFalse(results.get(2).isEntailed());
+            assertFalse(results.get(2).isUnknown());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/********************************************************************************
+ * The ReducedClauseSetTest class checks that the reduced clauses of a KB are
+ * shared by the searches of one version (see KnowledgeBase.getReducedClauseSet()),
+ * and that a later TELL leaves a set already handed out as it was
+ ********************************************************************************/
+class ReducedClauseSetTest{
+
+    @Test
+    void setIsSharedUntilTheKBChanges(){
+        KnowledgeBase knowledgeBase = new KnowledgeBase();
+        knowledgeBase.tell("P(A)");
+        knowledgeBase.tell("~P(x) | Q(x)");
+        ReducedClauseSet reducedClauses = knowledgeBase.getReducedClauseSet();
+        assertSame(reducedClauses, knowledgeBase.getReducedClauseSet());
+        //P(x) subsumes P(A): the KB drops it, but the set already handed out keeps it
+        knowledgeBase.tell("P(x)");
+        ReducedClauseSet laterClauses = knowledgeBase.getReducedClauseSet();
+        assertNotSame(reducedClauses, laterClauses);
+        Clause fact = homework.parseSentence("P(A)", knowledgeBase.getSymbols());
+        assertTrue(reducedClauses.contains(fact));
+        assertEquals(2, reducedClauses.size());
+        assertFalse(laterClauses.contains(fact));
+        assertEquals(2, laterClauses.size());
+    }
+
+    @Test
+    void searchesLeaveTheSetAsItWas(){
+        try (ProverSession session = new ProverSession()) {
+            session.tell("P(x) | Q(x)");
+            session.tell("~Q(x)");
+            ReducedClauseSet reducedClauses = session.getKnowledgeBase().getReducedClauseSet();
+            Clause disjunction = homework.parseSentence("P(x) | Q(x)", session.getKnowledgeBase().getSymbols());
+            //The search derives P(x), which subsumes P(x) | Q(x): only that search drops it
+            assertTrue(session.ask("P(B)").isEntailed());
+            assertSame(reducedClauses, session.getKnowledgeBase().getReducedClauseSet());
+            assertTrue(reducedClauses.contains(disjunction));
+            assertEquals(2, reducedClauses.size());
+            assertFalse(session.ask("Q(B)").isEntailed());
+        }
+    }
+}
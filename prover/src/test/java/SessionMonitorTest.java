@@ -0,0 +1,34 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+/********************************************************************************
+ * The SessionMonitorTest class checks the JMX registration of a ProverSession
+ * (see ProverSession.registerMonitor()): a session is registered under one name
+ * at a time, and none is left behind once it is closed
+ ********************************************************************************/
+class SessionMonitorTest{
+
+    @Test
+    void registeringAgainReplacesTheEarlierName() throws Exception{
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName firstName = new ObjectName("homework:type=ProverSession,name=first");
+        ObjectName secondName = new ObjectName("homework:type=ProverSession,name=second");
+        try (ProverSession session = new ProverSession()) {
+            session.registerMonitor("first");
+            assertTrue(server.isRegistered(firstName));
+            session.registerMonitor("second");
+            assertFalse(server.isRegistered(firstName));
+            assertTrue(server.isRegistered(secondName));
+            session.tell("P(A)");
+            session.ask("P(A)");
+            assertEquals(1L, server.getAttribute(secondName, "QueryCount"));
+        }
+        assertFalse(server.isRegistered(secondName));
+    }
+}